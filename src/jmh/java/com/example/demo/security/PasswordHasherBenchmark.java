@@ -0,0 +1,36 @@
+package com.example.demo.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Password verifications per second on one thread, i.e. logins/sec per core, for each BCrypt cost.
+// Multiply by security.password.verify-concurrency to size login capacity.
+//
+//   mvn -Pjmh test-compile exec:exec -Djmh.args=PasswordHasherBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class PasswordHasherBenchmark {
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private BCryptPasswordHasher hasher;
+    private String stored;
+
+    @Setup
+    public void setUp() {
+        hasher = new BCryptPasswordHasher(strength);
+        stored = hasher.hash("correct horse battery staple");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.matches("correct horse battery staple", stored);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.TopKHeap;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Throughput of the matching hot paths over synthetic populations. Run with the gc profiler to
+// see allocation per operation as well:
+//
+//   mvn -Pjmh test-compile exec:exec -Djmh.args="MatchingBenchmark -prof gc"
+//
+// Repository calls are answered from memory, so these numbers exclude database time.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+public class MatchingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int users;
+
+    private List<User> mentees;
+    private List<User> mentors;
+    private UserServicesImplements userServices;
+    private MatchingServiceImplements matchingService;
+    private MatchIndex matchIndex;
+    private MatchResultCache matchResultCache;
+
+    @Setup
+    public void setUp() {
+        List<User> population = SyntheticUsers.generate(users, 42);
+        mentees = population.stream().filter(user -> user.getRole().equals("mentee")).toList();
+        mentors = population.stream().filter(user -> user.getRole().equals("mentor")).toList();
+
+        UserRepository userRepository = SyntheticUsers.repository(population.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity())));
+        matchIndex = new MatchIndex(userRepository, 0, "");
+        matchIndex.rebuild(population);
+        // large enough that every lookup after the first is a hit, like a warm production cache
+        UserCache userCache = new UserCache(users, Duration.ofHours(1), TransactionOperations.withoutTransaction());
+
+        MatchingMetrics matchingMetrics = new MatchingMetrics(new SimpleMeterRegistry());
+        ScoringModel scoringModel = new ScoringModel(15, 5, 20, 25, 20, 5, 10, 2, 5);
+
+        userServices = new UserServicesImplements(userRepository, null, matchIndex, userCache, null,
+                null, null, null, null, null, matchingMetrics, scoringModel, null, null);
+        matchingService = new MatchingServiceImplements(userRepository, matchIndex, userCache, null, matchingMetrics, null);
+        matchResultCache = new MatchResultCache(matchIndex, scoringModel, userRepository, 100, users,
+                Duration.ofHours(1), Duration.ofHours(1), 5);
+    }
+
+    // Walks the populations so consecutive invocations do not score the same pair
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            next = next + 1 == Integer.MAX_VALUE ? 0 : next + 1;
+            return next % bound;
+        }
+    }
+
+    @Benchmark
+    public int calculateMatchScore(Cursor cursor) {
+        return userServices.calculateMatchScore(mentees.get(cursor.next(mentees.size())),
+                mentors.get(cursor.next(mentors.size())));
+    }
+
+    // Scores the mentee against every mentor in the population
+    @Benchmark
+    public User matchMenteeWithMentor(Cursor cursor) {
+        return userServices.matchMenteeWithMentor(mentees.get(cursor.next(mentees.size())), mentors);
+    }
+
+    // Top 10 mentors for a mentee, scored column by column over the mentee's partitions
+    @Benchmark
+    public TopKHeap.Entry[] rankReachableMentors(Cursor cursor) {
+        return matchResultCache.scan(matchIndex.profileOf(mentees.get(cursor.next(mentees.size()))), null, 10);
+    }
+
+    // Mentors for a mentee: index intersection on meeting type, availability, language and expertise
+    @Benchmark
+    public List<User> userServicesMatchMentees(Cursor cursor) {
+        return userServices.matchMentees(mentees.get(cursor.next(mentees.size())).getId());
+    }
+
+    // Mentees for a mentor: index intersection on meeting type, availability and language
+    @Benchmark
+    public List<User> matchingServiceMatchMentees(Cursor cursor) {
+        return matchingService.matchMentees(mentors.get(cursor.next(mentors.size())).getId());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.services;
+
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+// Deterministic user populations for the matching benchmarks. Attribute popularity is skewed
+// (a few languages, topics and weekdays dominate) to match what real sign-ups look like,
+// which is what drives posting-list sizes and tie counts.
+final class SyntheticUsers {
+
+    private static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    private static final double[] DAY_WEIGHTS = {6, 5, 6, 5, 4, 2, 1};
+    private static final String[] LANGUAGES = {"Java", "Python", "JavaScript", "TypeScript", "C#", "C++", "Go", "SQL",
+            "Kotlin", "Ruby", "PHP", "Swift", "Rust", "R", "Scala"};
+    private static final String[] TOPICS = {"Spring", "React", "Machine Learning", "Microservices", "DevOps", "Cloud",
+            "Data Engineering", "Security", "Mobile", "UX Design", "Testing", "Databases", "Networking", "Android",
+            "iOS", "Kubernetes", "Docker", "Django", "Flask", "Angular", "Vue", "Node", "GraphQL", "Embedded",
+            "Game Development", "Blockchain", "Agile", "System Design", "Algorithms", "Frontend"};
+    private static final String[] LOCATIONS = {"California", "Texas", "New York", "Florida", "Washington", "Illinois",
+            "Georgia", "Virginia", "Colorado", "Massachusetts"};
+
+    private SyntheticUsers() {
+    }
+
+    // One mentor for every four mentees; ids are 1..size
+    static List<User> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setRole(i % 5 == 0 ? "mentor" : "mentee");
+            user.setMeetingType(random.nextInt(10) < 7 ? "virtual" : "in-person");
+            user.setLocation(LOCATIONS[zipf(random, LOCATIONS.length)]);
+            user.setYearsOfExperience(random.nextInt(user.getRole().equals("mentor") ? 25 : 5));
+            user.setAvailability(pickWeighted(random, 1 + random.nextInt(3), DAYS, DAY_WEIGHTS));
+            user.setCodingLanguage(pickZipf(random, 1 + random.nextInt(3), LANGUAGES));
+            user.setExpertise(pickZipf(random, 1 + random.nextInt(4), TOPICS));
+            users.add(user);
+        }
+        return users;
+    }
+
+    // Just enough of UserRepository for the service methods under benchmark, backed by a map,
+    // so the numbers measure the matching code rather than a database
+    static UserRepository repository(Map<Long, User> users) {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(users.get((Long) args[0]));
+                    case "findAllById" -> {
+                        List<User> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            User user = users.get((Long) id);
+                            if (user != null) {
+                                found.add(user);
+                            }
+                        }
+                        yield found;
+                    }
+                    case "findMentorIdsWithOpenSlots" -> users.values().stream()
+                            .filter(user -> user.getRole().equals("mentor"))
+                            .map(User::getId)
+                            .toList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static List<String> pickZipf(Random random, int count, String[] values) {
+        Set<String> picked = new LinkedHashSet<>();
+        while (picked.size() < count) {
+            picked.add(values[zipf(random, values.length)]);
+        }
+        return new ArrayList<>(picked);
+    }
+
+    private static List<String> pickWeighted(Random random, int count, String[] values, double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        Set<String> picked = new LinkedHashSet<>();
+        while (picked.size() < count) {
+            double r = random.nextDouble() * total;
+            int i = 0;
+            while (r >= weights[i]) {
+                r -= weights[i++];
+            }
+            picked.add(values[i]);
+        }
+        return new ArrayList<>(picked);
+    }
+
+    // Rank drawn with probability proportional to 1 / (rank + 1)
+    private static int zipf(Random random, int n) {
+        double harmonic = 0;
+        for (int i = 1; i <= n; i++) {
+            harmonic += 1.0 / i;
+        }
+        double r = random.nextDouble() * harmonic;
+        for (int i = 0; i < n; i++) {
+            r -= 1.0 / (i + 1);
+            if (r < 0) {
+                return i;
+            }
+        }
+        return n - 1;
+    }
+}
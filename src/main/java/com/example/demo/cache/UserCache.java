@@ -0,0 +1,177 @@
+package com.example.demo.cache;
+
+import com.example.demo.models.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Bounded in-process cache of user profiles in front of UserRepository, keyed by id and by email.
+// Entries are evicted by size and age, and explicitly by every service method that writes a user.
+// The cache holds detached copies, complete with their collections, and every hit hands out a copy
+// of its own, so no caller can change a cached profile or trip over a closed persistence context.
+@Component
+public class UserCache implements MeterBinder {
+
+    private final Cache<Long, User> byId;
+    // email -> id, resolved through byId so a profile is only ever cached once
+    private final Cache<String, Long> byEmail;
+    // loaders run in here, so lazy collections can still be fetched when the entry is copied
+    private final TransactionOperations transactions;
+
+    @Autowired
+    public UserCache(@Value("${user.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${user.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                     PlatformTransactionManager transactionManager) {
+        this(maximumSize, expireAfterWrite, readOnly(transactionManager));
+    }
+
+    public UserCache(long maximumSize, Duration expireAfterWrite, TransactionOperations transactions) {
+        this.transactions = transactions;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    // Hit/miss/eviction counters for both caches on the metrics endpoint
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "user.byId");
+        CaffeineCacheMetrics.monitor(registry, byEmail, "user.byEmail");
+    }
+
+    public Optional<User> getById(Long id, Supplier<Optional<User>> loader) {
+        User cached = byId.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(detachedCopy(cached));
+        }
+        return load(loader);
+    }
+
+    public Optional<User> getByEmail(String email, Supplier<Optional<User>> loader) {
+        if (email == null) {
+            return loader.get();
+        }
+        Long id = byEmail.getIfPresent(email);
+        User cached = id == null ? null : byId.getIfPresent(id);
+        if (cached != null && email.equals(cached.getEmail())) {
+            return Optional.of(detachedCopy(cached));
+        }
+        return load(loader);
+    }
+
+    public void evict(Long id) {
+        if (id == null) {
+            return;
+        }
+        User cached = byId.getIfPresent(id);
+        byId.invalidate(id);
+        if (cached != null && cached.getEmail() != null) {
+            byEmail.invalidate(cached.getEmail());
+        }
+    }
+
+    // Evict now, and again once the surrounding transaction commits so a reader that
+    // reloads the row between our write and the commit cannot leave a stale entry behind
+    public void evictAfterCommit(Collection<Long> ids) {
+        ids.forEach(this::evict);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(UserCache.this::evict);
+                }
+            });
+        }
+    }
+
+    public void evictAfterCommit(Long... ids) {
+        evictAfterCommit(List.of(ids));
+    }
+
+    public void evictEmail(String email) {
+        if (email != null) {
+            byEmail.invalidate(email);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", describe(byId.stats(), byId.estimatedSize()));
+        stats.put("byEmail", describe(byEmail.stats(), byEmail.estimatedSize()));
+        return stats;
+    }
+
+    // The copy is taken inside the loader's transaction, while lazy collections can still be fetched;
+    // the caller gets the loaded user itself, the cache a copy nobody else holds
+    private Optional<User> load(Supplier<Optional<User>> loader) {
+        return transactions.execute(status -> {
+            Optional<User> loaded = loader.get();
+            loaded.ifPresent(user -> {
+                byId.put(user.getId(), detachedCopy(user));
+                if (user.getEmail() != null) {
+                    byEmail.put(user.getEmail(), user.getId());
+                }
+            });
+            return loaded;
+        });
+    }
+
+    private static User detachedCopy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        copy.setExpertise(copyOf(user.getExpertise()));
+        copy.setCodingLanguage(copyOf(user.getCodingLanguage()));
+        copy.setAvailability(copyOf(user.getAvailability()));
+        copy.setInterests(copyOf(user.getInterests()));
+        copy.setSkills(copyOf(user.getSkills()));
+        return copy;
+    }
+
+    private static List<String> copyOf(List<String> values) {
+        return values == null ? null : new ArrayList<>(values);
+    }
+
+    private static TransactionOperations readOnly(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static Map<String, Object> describe(CacheStats stats, long size) {
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("size", size);
+        described.put("hits", stats.hitCount());
+        described.put("misses", stats.missCount());
+        described.put("hitRate", stats.hitRate());
+        described.put("evictions", stats.evictionCount());
+        return described;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Match computation is CPU bound, so it runs on a small fixed pool instead of the
+    // (virtual) request threads. The queue is bounded; when it is full requests are rejected
+    // with 503 rather than piling up behind the computation.
+    @Bean
+    public ThreadPoolTaskExecutor matchExecutor(@Value("${matching.async.max-concurrency:4}") int maxConcurrency,
+                                                @Value("${matching.async.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("match-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Password hashing is deliberately slow and CPU bound. Capping it at roughly one thread per core
+    // keeps a burst of logins from starving every other request; excess logins queue here instead.
+    @Bean
+    public ThreadPoolTaskExecutor passwordExecutor(@Value("${security.password.verify-concurrency:0}") int concurrency,
+                                                   @Value("${security.password.queue-capacity:500}") int queueCapacity) {
+        int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -11,7 +11,8 @@ public class WebConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**") // Allows all endpoints
                 .allowedOrigins("http://localhost:5173") // Allow your frontend's origin
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS") // Specify allowed methods
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS") // Specify allowed methods
+                .exposedHeaders("X-Next-After-Id") // Let the frontend read list paging cursors
                 .allowCredentials(true); // Allow cookies or authentication
     }
 }
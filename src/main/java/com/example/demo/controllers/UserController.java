@@ -1,23 +1,48 @@
 package com.example.demo.controllers;
 
+import com.example.demo.cache.UserCache;
+import com.example.demo.dto.BatchAssignmentRequest;
+import com.example.demo.dto.BatchAssignmentResultDTO;
+import com.example.demo.dto.BulkImportResultDTO;
 import com.example.demo.dto.EditUserDTO;
 import com.example.demo.repository.UserRepository;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.demo.dto.LoginRequest;
-import com.example.demo.dto.MatchDTO;
+import com.example.demo.dto.MentorshipDTO;
+import com.example.demo.dto.PatchUserDTO;
+import com.example.demo.dto.UserSummary;
 import com.example.demo.models.User;
+import com.example.demo.security.TokenClaims;
+import com.example.demo.security.TokenService;
+import com.example.demo.services.AssignmentService;
+import com.example.demo.services.MentorFullException;
 import com.example.demo.services.UserServices;
 import com.example.demo.services.MatchingService;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/user")
@@ -25,27 +50,53 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    private static final int MAX_MATCH_PAGE_SIZE = 100;
+    private static final int MAX_LIST_PAGE_SIZE = 500;
+    private static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
+    private static final String BEARER = "Bearer ";
+    private static final String EMAIL_CONSTRAINT = "uk_user_email";
+
     @Autowired
     private UserServices userServices;
 
     @Autowired
     private MatchingService matchingService;
 
+    @Autowired
+    private AssignmentService assignmentService;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ThreadPoolTaskExecutor matchExecutor;
+
+    @Autowired
+    private TokenService tokenService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User newUser) {
         logger.info("Registering user: {}", newUser.getEmail());
-        Optional<User> existingUser = userServices.findByEmail(newUser.getEmail());
 
-        logger.info(String.valueOf(existingUser));
-        if (existingUser.isPresent()) {
-            logger.warn("Email already in use: {}", newUser.getEmail());
-            return ResponseEntity.status(HttpStatus.CONFLICT).body("Email is already in use.");
+        // The unique email index decides: a single insert, with a conflict reported as 409
+        Optional<User> registeredUser;
+        try {
+            registeredUser = userServices.saveUser(newUser);
+        } catch (DataIntegrityViolationException e) {
+            if (violates(e, EMAIL_CONSTRAINT)) {
+                logger.warn("Email already in use: {}", newUser.getEmail());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("Email is already in use.");
+            }
+            logger.warn("Rejected registration for {}: {}", newUser.getEmail(), e.getMostSpecificCause().getMessage());
+            return ResponseEntity.badRequest().body("Invalid user data.");
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing saturated, rejecting registration for: {}", newUser.getEmail());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many requests, try again shortly");
         }
 
-        Optional<User> registeredUser = userServices.saveUser(newUser);
         if (registeredUser.isPresent()) {
             logger.info("User registered successfully: {}", registeredUser.get().getEmail());
             return ResponseEntity.status(HttpStatus.CREATED).body(registeredUser.get());
@@ -55,14 +106,38 @@ public class UserController {
         }
     }
 
+    // Newline-delimited JSON, one user object per line
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkImportResultDTO> importUsers(InputStream body) throws IOException {
+        logger.info("Bulk importing users");
+        BulkImportResultDTO result = userServices.importUsers(body);
+        return result.getError() == null
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.badRequest().body(result);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        logger.info("Exporting all users");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(userServices::exportUsers);
+    }
+
     @PostMapping("/login")
     public ResponseEntity<?> loginUser(@RequestBody LoginRequest loginRequest) {
         logger.info("User login attempt: {}", loginRequest.getEmail());
-        Optional<User> user = userServices.loginUser(loginRequest.getEmail(), loginRequest.getPassword());
+        Optional<User> user;
+        try {
+            user = userServices.loginUser(loginRequest.getEmail(), loginRequest.getPassword());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password verification saturated, rejecting login for: {}", loginRequest.getEmail());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Too many logins, try again shortly");
+        }
 
         if (user.isPresent()) {
-            HashMap response = new HashMap<>();
-            response.put("token", "granted");
+            Map<String, Object> response = new HashMap<>();
+            response.put("token", tokenService.issue(user.get()));
             response.put("userID", user.get().getId());
             response.put("role", user.get().getRole());
             logger.info("User logged in successfully: {}", loginRequest.getEmail());
@@ -74,12 +149,17 @@ public class UserController {
     }
 
     @GetMapping("/users")
-    public ResponseEntity<List<User>> getAllUsers() {
+    public ResponseEntity<List<UserSummary>> getAllUsers() {
         logger.info("Fetching all users");
-        List<User> users = userServices.getAllUsers();
+        List<UserSummary> users = userServices.getAllUsers();
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(userCache.stats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable Long id) {
         logger.info("Fetching user by ID: {}", id);
@@ -95,9 +175,20 @@ public class UserController {
     }
 
     @PostMapping("/{mentorId}/add-mentee/{menteeId}")
-    public ResponseEntity<?> addMentee(@PathVariable Long mentorId, @PathVariable Long menteeId) {
+    public ResponseEntity<?> addMentee(@PathVariable Long mentorId, @PathVariable Long menteeId,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
         logger.info("Adding mentee with ID: {} to mentor with ID: {}", menteeId, mentorId);
-        Optional<User> result = userServices.addMentee(mentorId, menteeId);
+        ResponseEntity<?> denied = authorizeMentorship(authorization, mentorId, menteeId);
+        if (denied != null) {
+            return denied;
+        }
+        Optional<User> result;
+        try {
+            result = userServices.addMentee(mentorId, menteeId);
+        } catch (MentorFullException e) {
+            logger.info("Mentor {} is full, not adding mentee {}", mentorId, menteeId);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Mentor has no open slots");
+        }
         return result.isPresent()
                 ? ResponseEntity.ok(result.get())
                 : ResponseEntity.notFound().build();
@@ -134,61 +225,158 @@ public class UserController {
 
 
     @DeleteMapping("/{mentorId}/remove-mentee/{menteeId}")
-    public ResponseEntity<?> removeMentee(@PathVariable Long mentorId, @PathVariable Long menteeId) {
+    public ResponseEntity<?> removeMentee(@PathVariable Long mentorId, @PathVariable Long menteeId,
+                                          @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
         logger.info("Removing mentee with ID: {} from mentor with ID: {}", menteeId, mentorId);
+        ResponseEntity<?> denied = authorizeMentorship(authorization, mentorId, menteeId);
+        if (denied != null) {
+            return denied;
+        }
         Optional<User> result = userServices.removeMentee(mentorId, menteeId);
         return result.isPresent()
                 ? ResponseEntity.ok(result.get())
                 : ResponseEntity.notFound().build();
     }
 
+    // Whether the failed write broke the named constraint. Drivers decorate the name (MySQL prefixes the
+    // table, H2 upper-cases it and appends the index number), so it is matched as a part of the name.
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String name = violation.getConstraintName();
+                return name != null && name.toLowerCase(Locale.ROOT).contains(constraint);
+            }
+        }
+        return false;
+    }
+
+    // Only the two parties may change a mentorship: the mentor, or the mentee, named in the path.
+    // Decided from the bearer token alone; returns the error response, or null when allowed.
+    private ResponseEntity<?> authorizeMentorship(String authorization, Long mentorId, Long menteeId) {
+        Optional<TokenClaims> claims = authorization != null && authorization.startsWith(BEARER)
+                ? tokenService.verify(authorization.substring(BEARER.length()).trim())
+                : Optional.empty();
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Missing or invalid token");
+        }
+        TokenClaims caller = claims.get();
+        boolean party = (caller.hasRole("mentor") && caller.userId() == mentorId)
+                || (caller.hasRole("mentee") && caller.userId() == menteeId);
+        if (!party) {
+            logger.warn("User {} may not change mentorship {} -> {}", caller.userId(), mentorId, menteeId);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not allowed to change this mentorship");
+        }
+        return null;
+    }
+
     @GetMapping("/{mentorId}/mentees")
     public ResponseEntity<?> getMentees(@PathVariable Long mentorId) {
         logger.info("Fetching mentees for mentor with ID: {}", mentorId);
-        List<User> mentees = userServices.getAllMentees(mentorId);
+        List<UserSummary> mentees = userServices.getAllMentees(mentorId);
         return !mentees.isEmpty()
                 ? ResponseEntity.ok().body(mentees)
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).body("User has no mentees");
     }
 
+    @GetMapping("/{mentorId}/mentorship")
+    public ResponseEntity<MentorshipDTO> getMentorship(@PathVariable Long mentorId) {
+        logger.info("Fetching mentorship for mentor with ID: {}", mentorId);
+        return userServices.getMentorship(mentorId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{menteeId}/mentors")
     public ResponseEntity<?> getMentors(@PathVariable Long menteeId) {
         logger.info("Fetching mentors for mentee with ID: {}", menteeId);
-        List<User> mentors = userServices.getAllMentors(menteeId);
+        List<UserSummary> mentors = userServices.getAllMentors(menteeId);
         return !mentors.isEmpty()
                 ? ResponseEntity.ok().body(mentors)
                 : ResponseEntity.status(HttpStatus.NOT_FOUND).body("User has no mentors");
     }
 
     @GetMapping("/{menteeId}/matches")
-    public ResponseEntity<List<MatchDTO>> getMatches(@PathVariable Long menteeId) {
-        logger.info("Fetching matches for mentee with ID: {}", menteeId);
-        List<User> matches = matchingService.matchMentees(menteeId);
-        return matches.isEmpty()
-                ? ResponseEntity.status(HttpStatus.NOT_FOUND).body(List.of())
-                : (ResponseEntity<List<MatchDTO>>) ResponseEntity.ok();
+    public ResponseEntity<?> getMatches(@PathVariable Long menteeId,
+                                        @RequestParam(defaultValue = "20") int k,
+                                        @RequestParam(required = false) String cursor) {
+        logger.info("Fetching top {} matches for mentee with ID: {}", k, menteeId);
+        if (k < 1 || k > MAX_MATCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_MATCH_PAGE_SIZE);
+        }
+        try {
+            return matchingService.topMatches(menteeId, k, cursor)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected match cursor for mentee with ID: {}", menteeId);
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
+    // Mentors whose personal statement, interests and skills read most like this user's
+    @GetMapping("/{userId}/similar-mentors")
+    public ResponseEntity<?> getSimilarMentors(@PathVariable Long userId, @RequestParam(defaultValue = "10") int k) {
+        logger.info("Fetching {} similar mentors for user with ID: {}", k, userId);
+        if (k < 1 || k > MAX_MATCH_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_MATCH_PAGE_SIZE);
+        }
+        return matchingService.similarMentors(userId, k)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+
+
+    // Same as /{menteeId}/matches, computed on the bounded match executor instead of the request thread
+    @GetMapping("/{menteeId}/matches/async")
+    public CompletableFuture<ResponseEntity<?>> getMatchesAsync(@PathVariable Long menteeId,
+                                                                @RequestParam(defaultValue = "20") int k,
+                                                                @RequestParam(required = false) String cursor) {
+        return supplyOnMatchExecutor(() -> getMatches(menteeId, k, cursor));
     }
 
 
 
     @GetMapping("/getAllMentors")
-    public  ResponseEntity<?> getAllMentors(){
-        List<User> allMentors = userServices.getAllFreeMentors();
-        return  ResponseEntity.ok().body(allMentors);
+    public  ResponseEntity<?> getAllMentors(@RequestParam(defaultValue = "0") long afterId,
+                                            @RequestParam(defaultValue = "50") int size){
+        if (size < 1 || size > MAX_LIST_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("size must be between 1 and " + MAX_LIST_PAGE_SIZE);
+        }
+        return page(userServices.getFreeMentors(afterId, size));
     }
 
 
     @GetMapping("/getAllMentees")
-    public  ResponseEntity<?> getAllMentees(){
-        List<User> allMentees = userServices.getAllFreeMentees();
-        return  ResponseEntity.ok().body(allMentees);
+    public  ResponseEntity<?> getAllMentees(@RequestParam(defaultValue = "0") long afterId,
+                                            @RequestParam(defaultValue = "50") int size){
+        if (size < 1 || size > MAX_LIST_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("size must be between 1 and " + MAX_LIST_PAGE_SIZE);
+        }
+        return page(userServices.getFreeMentees(afterId, size));
+    }
+
+    // Body stays a plain list; the afterId for the next page travels in a header
+    private ResponseEntity<List<UserSummary>> page(Slice<UserSummary> slice) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.hasNext()) {
+            response.header(NEXT_AFTER_ID_HEADER, String.valueOf(slice.getContent().get(slice.getNumberOfElements() - 1).id()));
+        }
+        return response.body(slice.getContent());
     }
 
 
 
     @PutMapping("/edit/{userID}")
     public ResponseEntity<?> editUser(@PathVariable Long userID, @RequestBody EditUserDTO newDetails) {
-        Optional<User> foundUser = userServices.editUserProfile(userID, newDetails);
+        Optional<User> foundUser;
+        try {
+            foundUser = userServices.editUserProfile(userID, newDetails);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Concurrent edit of user with ID: {}", userID);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("User was changed concurrently, try again");
+        }
 
         if (foundUser.isPresent()) {
             return ResponseEntity.ok().body(foundUser.get());
@@ -200,26 +388,56 @@ public class UserController {
 
 
 
-    @GetMapping("/match/{menteeId}")
-    public ResponseEntity<User> matchMenteeWithMentor(@PathVariable Long menteeId) {
-        // Fetch the mentee based on ID
-       Optional<User> mentee = userRepository.findById(menteeId);
+    // Sparse edit: only the fields in the body change, list fields take {"add": [...], "remove": [...]}
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable Long id, @RequestBody PatchUserDTO patch) {
+        Optional<User> patchedUser;
+        try {
+            patchedUser = userServices.patchUserProfile(id, patch);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Concurrent edit of user with ID: {}", id);
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("User was changed concurrently, try again");
+        }
+        return patchedUser.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
 
 
-        if (!mentee.isPresent()) {
+    @GetMapping("/match/{menteeId}")
+    public ResponseEntity<UserSummary> matchMenteeWithMentor(@PathVariable Long menteeId) {
+        if (!userRepository.existsById(menteeId)) {
             return ResponseEntity.notFound().build(); // Return 404 if mentee not found
         }
 
-        // Fetch all mentors
-        List<User> mentors = userServices.getAllFreeMentors();
+        // Score free mentors from the match index and load only the winner's summary
+        return userServices.matchMentor(menteeId)
+                .map(ResponseEntity::ok) // Return matched mentor
+                .orElseGet(() -> ResponseEntity.noContent().build()); // Return 204 if no matches found
+    }
 
-        // Get a matched mentor
-        User matchedMentor = userServices.matchMenteeWithMentor(mentee.get(),mentors);
+    @GetMapping("/match/{menteeId}/async")
+    public CompletableFuture<ResponseEntity<?>> matchMenteeWithMentorAsync(@PathVariable Long menteeId) {
+        return supplyOnMatchExecutor(() -> matchMenteeWithMentor(menteeId));
+    }
 
-        if (matchedMentor != null) {
-            return ResponseEntity.ok(matchedMentor); // Return matched mentor
-        } else {
-            return ResponseEntity.noContent().build(); // Return 204 if no matches found
+    private CompletableFuture<ResponseEntity<?>> supplyOnMatchExecutor(Supplier<ResponseEntity<?>> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, matchExecutor);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Match executor saturated, rejecting request");
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Matching is busy, try again shortly"));
+        }
+    }
+
+    @PostMapping("/match/batch")
+    public ResponseEntity<?> assignCohort(@RequestBody BatchAssignmentRequest request) {
+        if (request.getMenteeIds() == null || request.getMenteeIds().isEmpty()) {
+            return ResponseEntity.badRequest().body("menteeIds must not be empty");
         }
+        logger.info("Batch assigning {} mentees", request.getMenteeIds().size());
+        BatchAssignmentResultDTO result = assignmentService.assignCohort(request.getMenteeIds());
+        return ResponseEntity.ok(result);
     }
 }
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class BatchAssignmentRequest {
+    private List<Long> menteeIds;
+
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchAssignmentResultDTO {
+    private List<AssignmentDTO> assignments;
+    private List<Long> unassignedMenteeIds; // eligible, but no mentor in reach had a slot left
+    private List<Long> rejectedIds; // not mentees, unknown, or already mentored
+    private long pairsScored;
+    private long elapsedMillis;
+    private double pairsScoredPerSecond;
+    private double assignmentsPerSecond;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BulkImportResultDTO {
+    private long imported;
+    private long duplicates; // email already registered or repeated earlier in the same upload
+    private long invalid; // lines without an email
+    private List<String> duplicateEmails = new ArrayList<>(); // capped, see user.bulk.max-reported-duplicates
+    private String error; // set when the upload stopped on a malformed line; earlier chunks stay imported
+    private long elapsedMillis;
+}
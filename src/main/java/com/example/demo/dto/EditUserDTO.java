@@ -7,6 +7,8 @@ import java.util.List;
 @Data
 public class EditUserDTO {
     private String location;
+    private Double latitude;
+    private Double longitude;
     private String personalStatement;
     private String certifications;
     private int yearsOfExperience;
@@ -10,6 +10,7 @@ public class MatchDTO {
     private Long menteeId;
     private String mentorName;
     private String menteeName;
+    private int score;
     private List<String> commonAvailability;
     private String meetingType;
     private List<String> commonCodingLanguage;
@@ -0,0 +1,10 @@
+package com.example.demo.dto;
+
+// Projection used by batch assignment to read mentor load without hydrating entities
+public interface MentorCapacity {
+    Long getId();
+
+    Integer getCapacity();
+
+    int getMenteeCount();
+}
@@ -0,0 +1,16 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Read model for a mentor's page: the mentor and every mentee summary, loaded in two statements
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MentorshipDTO {
+    private UserSummary mentor;
+    private List<UserSummary> mentees;
+}
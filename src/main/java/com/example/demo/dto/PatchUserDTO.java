@@ -0,0 +1,89 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Body of PATCH /user/{id}: a field left out keeps its current value and a field sent as null is
+// cleared. Fields that cannot be empty (yearsOfExperience, meetingType and the list deltas) reject an
+// explicit null, which is a 400. The list fields are changed by naming values to add and to remove,
+// never by sending the whole list.
+@Data
+public class PatchUserDTO {
+    private String location;
+    private Double latitude;
+    private Double longitude;
+    private String personalStatement;
+    private String certifications;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private Integer yearsOfExperience;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private String meetingType;
+
+    @JsonSetter(nulls = Nulls.FAIL)
+    private ValuesDelta expertise;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private ValuesDelta codingLanguage;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private ValuesDelta availability;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private ValuesDelta interests;
+    @JsonSetter(nulls = Nulls.FAIL)
+    private ValuesDelta skills;
+
+    // Fields set to null: Jackson only calls a setter for a field the body names, so this is how an
+    // explicit null is told apart from a field left out
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private Set<String> cleared = new HashSet<>();
+
+    public void setLocation(String location) {
+        this.location = location;
+        track("location", location);
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+        track("latitude", latitude);
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+        track("longitude", longitude);
+    }
+
+    public void setPersonalStatement(String personalStatement) {
+        this.personalStatement = personalStatement;
+        track("personalStatement", personalStatement);
+    }
+
+    public void setCertifications(String certifications) {
+        this.certifications = certifications;
+        track("certifications", certifications);
+    }
+
+    public boolean clears(String field) {
+        return cleared.contains(field);
+    }
+
+    private void track(String field, Object value) {
+        if (value == null) {
+            cleared.add(field);
+        } else {
+            cleared.remove(field);
+        }
+    }
+
+    @Data
+    public static class ValuesDelta {
+        private List<String> add = List.of();
+        private List<String> remove = List.of();
+    }
+}
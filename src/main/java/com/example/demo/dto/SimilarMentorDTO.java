@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+// A mentor from the similar-mentors lookup; similarity is the cosine of the two profile embeddings
+public record SimilarMentorDTO(UserSummary mentor, double similarity) {
+}
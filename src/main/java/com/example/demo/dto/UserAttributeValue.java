@@ -0,0 +1,5 @@
+package com.example.demo.dto;
+
+// One element of a user's element collection (availability, coding language, expertise)
+public record UserAttributeValue(Long userId, String value) {
+}
@@ -0,0 +1,17 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+// The single-valued columns matching reads, selected with a constructor expression so loading the
+// match index never hydrates (or holds on to) User entities. Element collections come separately.
+public record UserMatchFields(
+        Long id,
+        String role,
+        String meetingType,
+        String location,
+        int yearsOfExperience,
+        Double latitude,
+        Double longitude,
+        List<String> interests,
+        List<String> skills) {
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+// The free-text fields SimilarityIndex embeds, selected with a constructor expression so its cold
+// load reads a keyset page of columns at a time instead of hydrating every User
+public record UserProfileText(
+        Long id,
+        String personalStatement,
+        List<String> interests,
+        List<String> skills) {
+}
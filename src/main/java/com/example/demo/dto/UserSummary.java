@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import com.example.demo.models.User;
+
+// Read-only projection for list endpoints: no password, no collections, no personal statement.
+// Repository queries build it with a constructor expression so only these columns are selected.
+public record UserSummary(
+        Long id,
+        String name,
+        String email,
+        String role,
+        String location,
+        String meetingType,
+        int yearsOfExperience,
+        String certifications,
+        String profilePic,
+        Integer capacity,
+        int menteeCount) {
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getName(), user.getEmail(), user.getRole(), user.getLocation(),
+                user.getMeetingType(), user.getYearsOfExperience(), user.getCertifications(), user.getProfilePic(),
+                user.getCapacity(), user.getMenteeCount());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.matching;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns normalized attribute values to dense int ids so profiles can store them as bit positions.
+// Ids are never reused, so bitsets built earlier stay valid when new values show up.
+public class AttributeDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> values = new ArrayList<>(); // id -> value, guarded by this
+
+    public int intern(String normalizedValue) {
+        Integer id = ids.get(normalizedValue);
+        return id != null ? id : add(normalizedValue);
+    }
+
+    private synchronized int add(String normalizedValue) {
+        Integer id = ids.get(normalizedValue);
+        if (id == null) {
+            id = values.size();
+            values.add(normalizedValue);
+            ids.put(normalizedValue, id);
+        }
+        return id;
+    }
+
+    public synchronized String valueOf(int id) {
+        return values.get(id);
+    }
+
+    // Every value, indexed by id
+    public synchronized String[] values() {
+        return values.toArray(String[]::new);
+    }
+
+    // -1 when the value has never been seen, which can never match anything
+    public int lookup(String normalizedValue) {
+        Integer id = ids.get(normalizedValue);
+        return id == null ? -1 : id;
+    }
+
+    public long[] bitsOf(Collection<String> normalizedValues) {
+        return bitsOf(normalizedValues, true);
+    }
+
+    // Bits of the values seen before; the dictionary does not grow and unknown values get no bit
+    public long[] knownBitsOf(Collection<String> normalizedValues) {
+        return bitsOf(normalizedValues, false);
+    }
+
+    private long[] bitsOf(Collection<String> normalizedValues, boolean intern) {
+        if (normalizedValues == null || normalizedValues.isEmpty()) {
+            return MatchProfile.EMPTY;
+        }
+        int max = -1;
+        int[] valueIds = new int[normalizedValues.size()];
+        int i = 0;
+        for (String value : normalizedValues) {
+            valueIds[i] = intern ? intern(value) : lookup(value);
+            max = Math.max(max, valueIds[i++]);
+        }
+        if (max < 0) {
+            return MatchProfile.EMPTY;
+        }
+        long[] bits = new long[(max >>> 6) + 1];
+        for (int valueId : valueIds) {
+            if (valueId >= 0) {
+                bits[valueId >>> 6] |= 1L << valueId;
+            }
+        }
+        return bits;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+}
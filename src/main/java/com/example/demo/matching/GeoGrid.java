@@ -0,0 +1,62 @@
+package com.example.demo.matching;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Fixed lat/lon grid whose cells are `cellKm` high. A user's reach is every cell overlapping the
+// bounding box of a cellKm radius around them, so nobody within the radius is ever missed; users
+// up to about two cells away can be included too, which scoring is free to rank low.
+final class GeoGrid {
+
+    private static final double KM_PER_DEGREE = 111.2;
+
+    // keeps the longitude span finite near the poles
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+
+    GeoGrid(double cellKm) {
+        this.cellDegrees = cellKm / KM_PER_DEGREE;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && Math.abs(latitude) <= 90 && Math.abs(longitude) <= 180;
+    }
+
+    MatchPartition cellOf(String meetingType, double latitude, double longitude) {
+        return MatchPartition.cell(meetingType, row(latitude), column(longitude));
+    }
+
+    Set<MatchPartition> around(String meetingType, double latitude, double longitude) {
+        double cos = Math.max(Math.cos(Math.toRadians(Math.min(90, Math.abs(latitude) + cellDegrees))),
+                MIN_COS_LATITUDE);
+        double longitudeSpan = cellDegrees / cos;
+        int firstColumn = (int) Math.floor((longitude + 180 - longitudeSpan) / cellDegrees);
+        int lastColumn = (int) Math.floor((longitude + 180 + longitudeSpan) / cellDegrees);
+        if (lastColumn - firstColumn + 1 >= columns) {
+            firstColumn = 0;
+            lastColumn = columns - 1;
+        }
+
+        Set<MatchPartition> cells = new HashSet<>();
+        for (int row = row(latitude - cellDegrees); row <= row(latitude + cellDegrees); row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                cells.add(MatchPartition.cell(meetingType, row, Math.floorMod(column, columns)));
+            }
+        }
+        return cells;
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.matching;
+
+import java.util.Collection;
+import java.util.List;
+
+// Column-oriented, immutable copy of a group of profiles: one primitive array per feature instead of
+// one object per user. Bitset columns are stored word-major (word w of every row is contiguous), so
+// scoring a mentee against all rows is a sequence of simple loops over flat arrays that the JIT can
+// unroll and vectorize.
+public final class MatchColumns {
+
+    public static final MatchColumns EMPTY = of(List.of());
+
+    final int size;
+    final long[] userIds;
+    final int[] meetingType;
+    final int[] location;
+    final int[] yearsOfExperience;
+    final SetColumn[] sets = new SetColumn[ScoringModel.SET_FEATURES.length]; // same order as SET_FEATURES
+
+    private MatchColumns(int size) {
+        this.size = size;
+        this.userIds = new long[size];
+        this.meetingType = new int[size];
+        this.location = new int[size];
+        this.yearsOfExperience = new int[size];
+    }
+
+    public static MatchColumns of(Collection<MatchProfile> profiles) {
+        MatchProfile[] rows = profiles.toArray(MatchProfile[]::new);
+        MatchColumns columns = new MatchColumns(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            columns.userIds[i] = rows[i].getUserId();
+            columns.meetingType[i] = rows[i].getMeetingType();
+            columns.location[i] = rows[i].getLocation();
+            columns.yearsOfExperience[i] = rows[i].getYearsOfExperience();
+        }
+        for (int f = 0; f < ScoringModel.SET_FEATURES.length; f++) {
+            columns.sets[f] = SetColumn.of(rows, f);
+        }
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long userId(int row) {
+        return userIds[row];
+    }
+
+    // One multi-valued attribute: `words` longs per row, word-major, plus each row's popcount
+    static final class SetColumn {
+
+        final int words;
+        final long[] bits;
+        final int[] cardinality;
+
+        private SetColumn(int words, long[] bits, int[] cardinality) {
+            this.words = words;
+            this.bits = bits;
+            this.cardinality = cardinality;
+        }
+
+        static SetColumn of(MatchProfile[] rows, int feature) {
+            int words = 0;
+            for (MatchProfile row : rows) {
+                words = Math.max(words, row.getSets()[feature].length);
+            }
+            long[] bits = new long[words * rows.length];
+            int[] cardinality = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                long[] rowBits = rows[i].getSets()[feature];
+                for (int w = 0; w < rowBits.length; w++) {
+                    bits[w * rows.length + i] = rowBits[w];
+                }
+                cardinality[i] = rows[i].getCardinalities()[feature];
+            }
+            return new SetColumn(words, bits, cardinality);
+        }
+    }
+}
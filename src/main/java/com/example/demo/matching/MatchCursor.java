@@ -0,0 +1,27 @@
+package com.example.demo.matching;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset position in a ranked match list: the (score, userId) of the last entry returned.
+// The next page holds everything ranking strictly after it, so page n costs the same as page 1.
+public record MatchCursor(int score, long userId) {
+
+    public boolean admits(int candidateScore, long candidateId) {
+        return TopKHeap.ranksBefore(score, userId, candidateScore, candidateId);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((score + ":" + userId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MatchCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            return new MatchCursor(Integer.parseInt(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid match cursor: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over the attributes used by matching.
+// Users are split into partitions (see MatchPartition) and every partition keeps its own postings,
+// (role, partition, attribute, value) -> user ids, so candidate sets come from intersecting the
+// postings of the partitions a user can reach instead of scanning every user.
+// The index is loaded through projections (see UserPoolReader) and keeps only primitive profiles, never
+// entities. With matching.snapshot.path set it is also saved to that file (see MatchSnapshot) on
+// shutdown, and a restart restores it from there and only re-reads the users changed since.
+@Component
+public class MatchIndex {
+
+    public enum Attribute {
+        AVAILABILITY,
+        CODING_LANGUAGE,
+        EXPERTISE,
+        INTERESTS,
+        SKILLS,
+        MEETING_TYPE
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchIndex.class);
+
+    static final String IN_PERSON = "in-person";
+
+    // rows written a little before a snapshot can commit after it, so catching up starts earlier
+    private static final Duration CATCH_UP_MARGIN = Duration.ofMinutes(1);
+
+    private static final Pattern LOCATION_SEPARATORS = Pattern.compile("[\\s.,]+");
+
+    private final UserPoolReader userPoolReader;
+
+    // null when matching.snapshot.path is unset and the index is only ever loaded from the database
+    private final Path snapshotFile;
+
+    // null when geo buckets are off and in-person users are partitioned by location only
+    private final GeoGrid geoGrid;
+
+    // role -> partition -> attribute -> value -> user ids
+    private final Map<String, Map<MatchPartition, Map<Attribute, Map<String, Set<Long>>>>> postings =
+            new ConcurrentHashMap<>();
+
+    // what we indexed for each user, so edits and deletes can remove stale postings
+    private final Map<Long, IndexedUser> indexedUsers = new ConcurrentHashMap<>();
+
+    // role -> partition -> profiles, for scans that need to score a whole partition
+    private final Map<String, Map<MatchPartition, PartitionProfiles>> profilesByRole = new ConcurrentHashMap<>();
+
+    private final Map<Attribute, AttributeDictionary> dictionaries = new EnumMap<>(Attribute.class);
+    private final AttributeDictionary locations = new AttributeDictionary();
+    private final AttributeDictionary roles = new AttributeDictionary();
+
+    private volatile boolean loaded;
+
+    public MatchIndex(UserRepository userRepository,
+                      @Value("${matching.partition.geo-cell-km:0}") double geoCellKm,
+                      @Value("${matching.snapshot.path:}") String snapshotPath) {
+        this.userPoolReader = new UserPoolReader(userRepository);
+        this.snapshotFile = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.geoGrid = geoCellKm > 0 ? new GeoGrid(geoCellKm) : null;
+        for (Attribute attribute : Attribute.values()) {
+            dictionaries.put(attribute, new AttributeDictionary());
+        }
+    }
+
+    public synchronized void index(User user) {
+        if (user != null && user.getId() != null) {
+            index(ProfileSource.of(user));
+        }
+    }
+
+    private void index(ProfileSource source) {
+        removePostings(source.userId());
+        roles.intern(source.role()); // so snapshot() finds every role in the dictionary it copies
+
+        MatchProfile profile = buildProfile(source, true);
+        IndexedUser entry = new IndexedUser(source.role(), source.latitude(), source.longitude(), profile);
+
+        Map<Attribute, Map<String, Set<Long>>> partitionPostings = postings
+                .computeIfAbsent(entry.role(), r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(profile.getPartition(), p -> new ConcurrentHashMap<>());
+        source.values().forEach((attribute, attributeValues) -> {
+            if (attribute == Attribute.MEETING_TYPE) {
+                return; // implied by the partition
+            }
+            Map<String, Set<Long>> valuePostings =
+                    partitionPostings.computeIfAbsent(attribute, a -> new ConcurrentHashMap<>());
+            for (String value : attributeValues) {
+                valuePostings.computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(source.userId());
+            }
+        });
+        indexedUsers.put(source.userId(), entry);
+        profilesByRole.computeIfAbsent(entry.role(), r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(profile.getPartition(), p -> new PartitionProfiles())
+                .put(source.userId(), profile);
+    }
+
+    public synchronized void remove(Long userId) {
+        if (userId != null) {
+            removePostings(userId);
+        }
+    }
+
+    public synchronized void rebuild(Iterable<User> users) {
+        clear();
+        users.forEach(this::index);
+        loaded = true;
+    }
+
+    // Replaces the contents with the users in the snapshot
+    synchronized void restore(MatchSnapshot snapshot) {
+        clear();
+        for (int row = 0; row < snapshot.size(); row++) {
+            index(snapshot.source(row));
+        }
+        loaded = true;
+    }
+
+    // Primitive copy of every indexed user, consistent as of the call
+    public synchronized MatchSnapshot snapshot() {
+        MatchSnapshot.Builder builder = new MatchSnapshot.Builder(Instant.now(), indexedUsers.size(), roles,
+                dictionaries.get(Attribute.MEETING_TYPE), locations, dictionaries);
+        indexedUsers.values().forEach(entry ->
+                builder.add(roles.intern(entry.role()), entry.profile(), entry.latitude(), entry.longitude()));
+        return builder.build();
+    }
+
+    // Writes the snapshot file, if there is one to write; a failure only costs the next start a full load
+    @PreDestroy
+    public void saveSnapshot() {
+        if (snapshotFile == null || !loaded) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            MatchSnapshot snapshot = snapshot();
+            snapshot.write(snapshotFile);
+            logger.info("Saved {} match profiles to {} in {} ms", snapshot.size(), snapshotFile,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not save the match snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    // Ids of users with the given role, in a partition `near` can reach, that share at least one value
+    // with every attribute in `required`. An empty or missing attribute list matches nobody.
+    public Set<Long> candidates(String role, User near, Map<Attribute, ? extends Collection<String>> required) {
+        ensureLoaded();
+        Map<MatchPartition, Map<Attribute, Map<String, Set<Long>>>> rolePostings = postings.get(normalize(role));
+        if (rolePostings == null || near.getMeetingType() == null) {
+            return Set.of();
+        }
+
+        Set<Long> result = new HashSet<>();
+        for (MatchPartition partition : profileOf(near).getReach()) {
+            Map<Attribute, Map<String, Set<Long>>> partitionPostings = rolePostings.get(partition);
+            if (partitionPostings == null) {
+                continue;
+            }
+            if (required.isEmpty()) {
+                profiles(role, partition).forEach(profile -> result.add(profile.getUserId()));
+            } else {
+                result.addAll(intersect(partitionPostings, required));
+            }
+        }
+        return result;
+    }
+
+    // Indexed profile for a user id, or null if the user is not indexed
+    public MatchProfile profile(Long userId) {
+        ensureLoaded();
+        IndexedUser entry = userId == null ? null : indexedUsers.get(userId);
+        return entry == null ? null : entry.profile();
+    }
+
+    // Every indexed profile of the given role in one partition
+    public Collection<MatchProfile> profiles(String role, MatchPartition partition) {
+        PartitionProfiles profiles = partition(role, partition);
+        return profiles == null ? List.of() : profiles.byId.values();
+    }
+
+    // The same profiles laid out column by column for bulk scoring. The snapshot is rebuilt on the
+    // first read after the partition changes, so it may briefly trail concurrent edits.
+    public MatchColumns columns(String role, MatchPartition partition) {
+        PartitionProfiles profiles = partition(role, partition);
+        return profiles == null ? MatchColumns.EMPTY : profiles.columns();
+    }
+
+    // How many profiles of the given role live in the partitions `near` can reach
+    public int countReachable(String role, MatchProfile near) {
+        int count = 0;
+        for (MatchPartition partition : near.getReach()) {
+            count += profiles(role, partition).size();
+        }
+        return count;
+    }
+
+    // Profile for the user as indexed, falling back to building one from the entity itself. The fallback
+    // is a read: it only looks values up, so a value no indexed user has overlaps with nobody and the
+    // dictionaries do not grow with every unsaved or unindexed user scored.
+    public MatchProfile profileOf(User user) {
+        MatchProfile profile = profile(user.getId());
+        return profile != null ? profile : buildProfile(ProfileSource.of(user), false);
+    }
+
+    // Distinct values interned for the attribute so far
+    int dictionarySize(Attribute attribute) {
+        return dictionaries.get(attribute).size();
+    }
+
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                }
+            }
+        }
+    }
+
+    // From the snapshot file plus whatever changed in the database since it was taken when there is a
+    // usable one, from the database alone otherwise. Either way the result is saved as the next snapshot.
+    private void load() {
+        long start = System.nanoTime();
+        MatchSnapshot snapshot = readSnapshot();
+        if (snapshot == null) {
+            clear();
+            userPoolReader.forEach(null, this::index);
+        } else {
+            restore(snapshot);
+            long[] ids = userPoolReader.ids();
+            List<Long> deleted = indexedUsers.keySet().stream()
+                    .filter(id -> Arrays.binarySearch(ids, id) < 0)
+                    .toList();
+            deleted.forEach(this::removePostings);
+            userPoolReader.forEach(snapshot.takenAt().minus(CATCH_UP_MARGIN), this::index);
+        }
+        loaded = true;
+        logger.info("Loaded {} match profiles {} in {} ms", indexedUsers.size(),
+                snapshot == null ? "from the database" : "from " + snapshotFile + " and the changes since",
+                (System.nanoTime() - start) / 1_000_000);
+        saveSnapshot();
+    }
+
+    private MatchSnapshot readSnapshot() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            return null;
+        }
+        try {
+            return MatchSnapshot.read(snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable match snapshot {}", snapshotFile, e);
+            return null;
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        indexedUsers.clear();
+        profilesByRole.clear();
+    }
+
+    private PartitionProfiles partition(String role, MatchPartition partition) {
+        ensureLoaded();
+        Map<MatchPartition, PartitionProfiles> partitions = profilesByRole.get(normalize(role));
+        return partitions == null ? null : partitions.get(partition);
+    }
+
+    private static Set<Long> intersect(Map<Attribute, Map<String, Set<Long>>> partitionPostings,
+                                       Map<Attribute, ? extends Collection<String>> required) {
+        List<Set<Long>> unions = new ArrayList<>();
+        required.forEach((attribute, values) -> unions.add(union(partitionPostings, attribute, values)));
+
+        // intersect starting from the smallest posting set to keep the working set small
+        unions.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(unions.get(0));
+        for (int i = 1; i < unions.size() && !result.isEmpty(); i++) {
+            result.retainAll(unions.get(i));
+        }
+        return result;
+    }
+
+    private static Set<Long> union(Map<Attribute, Map<String, Set<Long>>> partitionPostings, Attribute attribute,
+                                   Collection<String> values) {
+        Map<String, Set<Long>> valuePostings = partitionPostings.get(attribute);
+        if (valuePostings == null || values == null || values.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> union = new HashSet<>();
+        for (String value : values) {
+            Set<Long> ids = valuePostings.get(normalize(value));
+            if (ids != null) {
+                union.addAll(ids);
+            }
+        }
+        return union;
+    }
+
+    private MatchProfile buildProfile(ProfileSource source, boolean intern) {
+        Map<Attribute, Set<String>> values = source.values();
+        Set<String> meetingType = values.get(Attribute.MEETING_TYPE);
+        String normalizedMeetingType = normalize(source.meetingType());
+        MatchPartition partition;
+        Set<MatchPartition> reach;
+        if (!IN_PERSON.equals(normalizedMeetingType)) {
+            partition = MatchPartition.of(normalizedMeetingType);
+            reach = Set.of(partition);
+        } else if (geoGrid != null && GeoGrid.isValid(source.latitude(), source.longitude())) {
+            partition = geoGrid.cellOf(normalizedMeetingType, source.latitude(), source.longitude());
+            reach = geoGrid.around(normalizedMeetingType, source.latitude(), source.longitude());
+        } else {
+            partition = MatchPartition.at(normalizedMeetingType, normalizeLocation(source.location()));
+            reach = Set.of(partition);
+        }
+        String location = normalizeLocation(source.location());
+        long[][] sets = new long[ScoringModel.SET_FEATURES.length][];
+        int[] cardinalities = new int[sets.length];
+        for (int f = 0; f < sets.length; f++) {
+            Attribute attribute = ScoringModel.SET_FEATURES[f];
+            Set<String> attributeValues = values.get(attribute);
+            AttributeDictionary dictionary = dictionaries.get(attribute);
+            sets[f] = intern ? dictionary.bitsOf(attributeValues) : dictionary.knownBitsOf(attributeValues);
+            cardinalities[f] = attributeValues == null ? 0 : attributeValues.size();
+        }
+        AttributeDictionary meetingTypes = dictionaries.get(Attribute.MEETING_TYPE);
+        return new MatchProfile(source.userId(),
+                meetingType.isEmpty() ? -1 : idOf(meetingTypes, meetingType.iterator().next(), intern),
+                location.isEmpty() ? -1 : idOf(locations, location, intern),
+                source.yearsOfExperience(),
+                sets,
+                cardinalities,
+                partition,
+                reach);
+    }
+
+    private static int idOf(AttributeDictionary dictionary, String normalizedValue, boolean intern) {
+        return intern ? dictionary.intern(normalizedValue) : dictionary.lookup(normalizedValue);
+    }
+
+    private void removePostings(Long userId) {
+        IndexedUser previous = indexedUsers.remove(userId);
+        if (previous == null) {
+            return;
+        }
+        MatchPartition partition = previous.profile().getPartition();
+        Map<MatchPartition, PartitionProfiles> roleProfiles = profilesByRole.get(previous.role());
+        if (roleProfiles != null) {
+            PartitionProfiles partitionProfiles = roleProfiles.get(partition);
+            if (partitionProfiles != null) {
+                partitionProfiles.remove(userId);
+                if (partitionProfiles.byId.isEmpty()) {
+                    roleProfiles.remove(partition);
+                }
+            }
+        }
+        Map<MatchPartition, Map<Attribute, Map<String, Set<Long>>>> rolePostings = postings.get(previous.role());
+        Map<Attribute, Map<String, Set<Long>>> partitionPostings =
+                rolePostings == null ? null : rolePostings.get(partition);
+        if (partitionPostings == null) {
+            return;
+        }
+        // the posted values are exactly the bits of the profile's sets
+        long[][] sets = previous.profile().getSets();
+        for (int f = 0; f < sets.length; f++) {
+            Attribute attribute = ScoringModel.SET_FEATURES[f];
+            Map<String, Set<Long>> valuePostings = partitionPostings.get(attribute);
+            if (valuePostings == null) {
+                continue;
+            }
+            for (int w = 0; w < sets[f].length; w++) {
+                long word = sets[f][w];
+                while (word != 0) {
+                    String value = dictionaries.get(attribute).valueOf((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                    Set<Long> ids = valuePostings.get(value);
+                    if (ids != null) {
+                        ids.remove(userId);
+                        if (ids.isEmpty()) {
+                            valuePostings.remove(value);
+                        }
+                    }
+                }
+            }
+        }
+        // drop partitions nobody lives in any more, geo cells in particular come and go
+        if (roleProfiles == null || !roleProfiles.containsKey(partition)) {
+            rolePostings.remove(partition);
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // "  San Francisco, CA." and "san francisco ca" land in the same partition
+    static String normalizeLocation(String location) {
+        return LOCATION_SEPARATORS.matcher(normalize(location)).replaceAll(" ").trim();
+    }
+
+    // coordinates are kept only so a snapshot can recompute the partition on restore
+    private record IndexedUser(String role, Double latitude, Double longitude, MatchProfile profile) {
+    }
+
+    // One partition's profiles plus a lazily built columnar snapshot of them. Writers only bump the
+    // version (they run under the index lock); a snapshot built from an older version is rebuilt
+    // on the next read, so a read racing an edit can never pin a stale snapshot.
+    private static final class PartitionProfiles {
+
+        private final Map<Long, MatchProfile> byId = new ConcurrentHashMap<>();
+        private volatile long version;
+        private volatile Snapshot snapshot;
+
+        void put(Long userId, MatchProfile profile) {
+            byId.put(userId, profile);
+            version++;
+        }
+
+        void remove(Long userId) {
+            byId.remove(userId);
+            version++;
+        }
+
+        MatchColumns columns() {
+            Snapshot current = snapshot;
+            long expected = version;
+            if (current == null || current.version() != expected) {
+                current = new Snapshot(expected, MatchColumns.of(byId.values()));
+                snapshot = current;
+            }
+            return current.columns();
+        }
+
+        private record Snapshot(long version, MatchColumns columns) {
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.matching;
+
+// Slice of the candidate pool that matching never looks beyond. Users only meet others with the
+// same meeting type, and in-person users only meet others in the same place: the same normalized
+// location, or the same geo cell when geo buckets are enabled and the user has coordinates.
+// Location and cell are unset (null / NO_CELL) when they do not apply.
+public record MatchPartition(String meetingType, String location, int row, int column) {
+
+    static final int NO_CELL = Integer.MIN_VALUE;
+
+    public static MatchPartition of(String meetingType) {
+        return new MatchPartition(meetingType, null, NO_CELL, NO_CELL);
+    }
+
+    public static MatchPartition at(String meetingType, String location) {
+        return new MatchPartition(meetingType, location, NO_CELL, NO_CELL);
+    }
+
+    public static MatchPartition cell(String meetingType, int row, int column) {
+        return new MatchPartition(meetingType, null, row, column);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.matching;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+// Compact, immutable view of the attributes scoring looks at.
+// Multi-valued attributes are bitsets over AttributeDictionary ids and single values are
+// dictionary ids (-1 when unset), so comparing two profiles is a handful of AND/popcount
+// operations and never allocates.
+@Getter
+public final class MatchProfile {
+
+    static final long[] EMPTY = new long[0];
+
+    private final Long userId;
+    private final int meetingType;
+    private final int location;
+    private final int yearsOfExperience;
+    private final MatchPartition partition;
+    private final Set<MatchPartition> reach; // partitions this user may be matched against
+
+    // multi-valued attributes and their popcounts, in ScoringModel.SET_FEATURES order
+    private final long[][] sets;
+    private final int[] cardinalities;
+
+    public MatchProfile(Long userId, int meetingType, int location, int yearsOfExperience, long[][] sets,
+                        MatchPartition partition, Set<MatchPartition> reach) {
+        this(userId, meetingType, location, yearsOfExperience, sets, cardinalities(sets), partition, reach);
+    }
+
+    // Cardinalities may exceed the bits set: values with no dictionary id still count towards a union
+    public MatchProfile(Long userId, int meetingType, int location, int yearsOfExperience, long[][] sets,
+                        int[] cardinalities, MatchPartition partition, Set<MatchPartition> reach) {
+        this.userId = userId;
+        this.meetingType = meetingType;
+        this.location = location;
+        this.yearsOfExperience = yearsOfExperience;
+        this.partition = partition;
+        this.reach = reach;
+        this.sets = sets;
+        this.cardinalities = cardinalities;
+    }
+
+    private static int[] cardinalities(long[][] sets) {
+        int[] cardinalities = new int[sets.length];
+        for (int f = 0; f < sets.length; f++) {
+            cardinalities[f] = cardinality(sets[f]);
+        }
+        return cardinalities;
+    }
+
+    public boolean canReach(MatchProfile other) {
+        return reach.contains(other.partition);
+    }
+
+    public static boolean intersects(long[] a, long[] b) {
+        int words = Math.min(a.length, b.length);
+        for (int i = 0; i < words; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static int overlap(long[] a, long[] b) {
+        int words = Math.min(a.length, b.length);
+        int count = 0;
+        for (int i = 0; i < words; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.demo.matching;
+
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Materialized top-N mentor list per mentee, so match reads are a lookup instead of a scan.
+// Profile and capacity changes only mark users dirty; a single background worker drains the
+// dirty sets after a short debounce, so a burst of edits turns into one pass. A changed mentor
+// is re-scored against each cached list (one pair per mentee); a changed mentee is rebuilt.
+@Component
+public class MatchResultCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchResultCache.class);
+
+    private static final int MAX_COMPUTE_ATTEMPTS = 3;
+
+    private final MatchIndex matchIndex;
+    private final ScoringModel scoringModel;
+    private final UserRepository userRepository;
+    private final int topN;
+    private final int defaultCapacity;
+    private final long debounceMillis;
+
+    private final Cache<Long, TopKHeap.Entry[]> lists;
+
+    // mentors that currently have a free slot; null until first loaded. Never modified in place:
+    // a drain builds the next set and swaps it in, so a scan sees either the old set or the new one
+    private volatile Set<Long> openMentors;
+
+    // Odd while a drain is running, bumped again when it is done. A list computed while this moved
+    // may predate the drain's changes, so it is not kept.
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Set<Long> dirtyMentors = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyMentees = ConcurrentHashMap.newKeySet();
+    private final Set<Long> removedUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "match-result-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MatchResultCache(MatchIndex matchIndex,
+                            ScoringModel scoringModel,
+                            UserRepository userRepository,
+                            @Value("${matching.precomputed.top-n:100}") int topN,
+                            @Value("${matching.precomputed.max-mentees:100000}") long maxMentees,
+                            @Value("${matching.precomputed.debounce:200ms}") Duration debounce,
+                            @Value("${matching.precomputed.max-age:10m}") Duration maxAge,
+                            @Value("${matching.default-mentor-capacity:5}") int defaultCapacity) {
+        this.matchIndex = matchIndex;
+        this.scoringModel = scoringModel;
+        this.userRepository = userRepository;
+        this.topN = topN;
+        this.defaultCapacity = defaultCapacity;
+        this.debounceMillis = debounce.toMillis();
+        // the age limit is a backstop; lists are kept current by the drains, not by expiring
+        this.lists = Caffeine.newBuilder().maximumSize(maxMentees).expireAfterWrite(maxAge).recordStats().build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, lists, "matching.precomputed");
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    // Best mentors for the mentee, best first, at most topN entries. A list shorter than topN
+    // holds every eligible mentor. Null if the mentee is not indexed.
+    public TopKHeap.Entry[] topMatches(Long menteeId) {
+        TopKHeap.Entry[] cached = lists.getIfPresent(menteeId);
+        if (cached != null) {
+            return cached;
+        }
+        for (int attempt = 0; attempt < MAX_COMPUTE_ATTEMPTS; attempt++) {
+            long started = generation.get();
+            if ((started & 1) != 0) {
+                break; // a drain is running; whatever is read now may be half-updated
+            }
+            MatchProfile mentee = matchIndex.profile(menteeId);
+            if (mentee == null) {
+                return null;
+            }
+            TopKHeap.Entry[] list = lists.get(menteeId, id -> scan(mentee, null, topN));
+            if (generation.get() == started) {
+                return list;
+            }
+            // a drain ran during the scan and may already have patched or dropped this mentee
+            lists.asMap().remove(menteeId, list);
+        }
+        // drains keep landing mid-scan: answer from the current state without caching it
+        MatchProfile mentee = matchIndex.profile(menteeId);
+        return mentee == null ? null : scan(mentee, null, topN);
+    }
+
+    // Brute-force ranking of every eligible mentor in the mentee's reach through a k-sized heap
+    public TopKHeap.Entry[] scan(MatchProfile mentee, MatchCursor after, int k) {
+        Set<Long> open = openMentors();
+        TopKHeap heap = new TopKHeap(k);
+        Long self = mentee.getUserId();
+        for (MatchPartition partition : mentee.getReach()) {
+            MatchColumns mentors = matchIndex.columns("mentor", partition);
+            int[] scores = scoringModel.scoreAll(mentee, mentors);
+            for (int i = 0; i < scores.length; i++) {
+                long mentorId = mentors.userId(i);
+                int score = scores[i];
+                if (score > 0 && (self == null || mentorId != self) && open.contains(mentorId)
+                        && (after == null || after.admits(score, mentorId))) {
+                    heap.offer(score, mentorId);
+                }
+            }
+        }
+        return heap.drain();
+    }
+
+    // A user's matching attributes changed (or the user is new)
+    public void userChanged(Long userId, String role) {
+        boolean mentor = "mentor".equalsIgnoreCase(role);
+        afterCommit(() -> {
+            dirtyMentees.add(userId);
+            if (mentor) {
+                dirtyMentors.add(userId);
+            }
+            scheduleDrain();
+        });
+    }
+
+    // A mentor gained or lost a mentee, which may open or close their last slot
+    public void capacityChanged(Collection<Long> mentorIds) {
+        afterCommit(() -> {
+            dirtyMentors.addAll(mentorIds);
+            scheduleDrain();
+        });
+    }
+
+    public void userRemoved(Long userId) {
+        afterCommit(() -> {
+            removedUsers.add(userId);
+            scheduleDrain();
+        });
+    }
+
+    private Set<Long> openMentors() {
+        Set<Long> open = openMentors;
+        if (open == null) {
+            synchronized (this) {
+                if (openMentors == null) {
+                    openMentors = new HashSet<>(userRepository.findMentorIdsWithOpenSlots(defaultCapacity));
+                }
+                open = openMentors;
+            }
+        }
+        return open;
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            worker.schedule(this::drain, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void drain() {
+        drainScheduled.set(false);
+        generation.incrementAndGet();
+        try {
+            Set<Long> removed = take(removedUsers);
+            Set<Long> mentees = take(dirtyMentees);
+            Set<Long> mentors = take(dirtyMentors);
+            mentors.addAll(removed);
+
+            Set<Long> open = new HashSet<>(openMentors());
+            open.removeAll(mentors);
+            if (!mentors.isEmpty()) {
+                open.addAll(userRepository.findMentorIdsWithOpenSlotsIn(mentors, defaultCapacity));
+            }
+            openMentors = open;
+
+            lists.invalidateAll(removed);
+            lists.invalidateAll(mentees);
+            Set<Long> rebuild = new HashSet<>();
+            for (Long mentorId : mentors) {
+                MatchProfile mentor = open.contains(mentorId) ? matchIndex.profile(mentorId) : null;
+                lists.asMap().replaceAll((menteeId, list) -> {
+                    TopKHeap.Entry[] updated = update(menteeId, list, mentorId, mentor);
+                    if (updated == null) {
+                        rebuild.add(menteeId);
+                        return list;
+                    }
+                    return updated;
+                });
+            }
+            // lists that lost an entry off a full list no longer know their next-best mentor
+            lists.invalidateAll(rebuild);
+            logger.debug("Refreshed match lists for {} mentors and {} mentees, {} lists dropped",
+                    mentors.size(), mentees.size(), rebuild.size());
+        } catch (RuntimeException e) {
+            logger.warn("Match list refresh failed, dropping all precomputed lists", e);
+            lists.invalidateAll();
+            openMentors = null;
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    // Re-score a single (mentee, mentor) pair inside an existing list. Returns null when the
+    // list can no longer be patched and must be recomputed.
+    private TopKHeap.Entry[] update(Long menteeId, TopKHeap.Entry[] list, Long mentorId, MatchProfile mentor) {
+        int existing = -1;
+        for (int i = 0; i < list.length; i++) {
+            if (list[i].id() == mentorId) {
+                existing = i;
+                break;
+            }
+        }
+        int score = 0;
+        if (mentor != null && !mentorId.equals(menteeId)) {
+            MatchProfile mentee = matchIndex.profile(menteeId);
+            if (mentee == null) {
+                return null;
+            }
+            // a mentor who moved out of the mentee's reach scores like a removed one
+            score = mentee.canReach(mentor) ? scoringModel.score(mentee, mentor) : 0;
+        }
+
+        List<TopKHeap.Entry> entries = new ArrayList<>(Arrays.asList(list));
+        if (existing >= 0) {
+            entries.remove(existing);
+        }
+        boolean wasFull = list.length == topN;
+        if (score > 0) {
+            int position = 0;
+            while (position < entries.size() && TopKHeap.ranksBefore(entries.get(position).score(),
+                    entries.get(position).id(), score, mentorId)) {
+                position++;
+            }
+            // Mentors outside a full list rank after its old last entry, so an entry landing at
+            // the tail is only known to belong there if it still ranks at or before that entry
+            TopKHeap.Entry last = list.length == 0 ? null : list[list.length - 1];
+            boolean known = !wasFull || position < entries.size()
+                    || TopKHeap.ranksBefore(score, mentorId, last.score(), last.id())
+                    || (last.id() == mentorId && score >= last.score());
+            if (position < topN && known) {
+                entries.add(position, new TopKHeap.Entry(score, mentorId));
+            }
+        }
+        if (wasFull && entries.size() < topN) {
+            return null;
+        }
+        if (entries.size() > topN) {
+            entries.remove(entries.size() - 1);
+        }
+        return entries.toArray(TopKHeap.Entry[]::new);
+    }
+
+    private static Set<Long> take(Set<Long> source) {
+        Set<Long> taken = new HashSet<>();
+        for (Iterator<Long> it = source.iterator(); it.hasNext(); ) {
+            taken.add(it.next());
+            it.remove();
+        }
+        return taken;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
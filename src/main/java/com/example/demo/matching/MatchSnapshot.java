@@ -0,0 +1,267 @@
+package com.example.demo.matching;
+
+import com.example.demo.matching.MatchIndex.Attribute;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Everything MatchIndex needs to rebuild itself without the database, as primitive columns: one array
+// per field, values as ids into the snapshot's own dictionaries, multi-valued attributes as bitset words
+// addressed through per-row offsets. Persisted as one file that is memory-mapped for reading and writing,
+// so saving or restoring a pool of a million users is a handful of bulk copies.
+public final class MatchSnapshot {
+
+    private static final int MAGIC = 0x4d534e50; // "MSNP"
+    private static final int FORMAT = 1;
+
+    // dictionary slots; the bitset features follow, in ScoringModel.SET_FEATURES order
+    static final int ROLES = 0;
+    static final int MEETING_TYPES = 1;
+    static final int LOCATIONS = 2;
+    private static final int FIRST_SET = 3;
+
+    private final Instant takenAt;
+    private final String[][] dictionaries;
+    private final int size;
+    private final long[] userIds;
+    private final int[] role;
+    private final int[] meetingType; // -1 when unset, like location
+    private final int[] location;
+    private final int[] yearsOfExperience;
+    private final double[] latitude;  // NaN when unset, like longitude
+    private final double[] longitude;
+    private final int[][] setOffsets; // per feature, row r owns words [offsets[r], offsets[r + 1])
+    private final long[][] setWords;
+
+    private MatchSnapshot(Instant takenAt, String[][] dictionaries, int size) {
+        this.takenAt = takenAt;
+        this.dictionaries = dictionaries;
+        this.size = size;
+        this.userIds = new long[size];
+        this.role = new int[size];
+        this.meetingType = new int[size];
+        this.location = new int[size];
+        this.yearsOfExperience = new int[size];
+        this.latitude = new double[size];
+        this.longitude = new double[size];
+        this.setOffsets = new int[ScoringModel.SET_FEATURES.length][size + 1];
+        this.setWords = new long[ScoringModel.SET_FEATURES.length][];
+    }
+
+    public Instant takenAt() {
+        return takenAt;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The row as index input, with every id resolved back to its value
+    ProfileSource source(int row) {
+        Map<Attribute, Set<String>> values = new EnumMap<>(Attribute.class);
+        for (int f = 0; f < ScoringModel.SET_FEATURES.length; f++) {
+            String[] dictionary = dictionaries[FIRST_SET + f];
+            Set<String> featureValues = new HashSet<>();
+            for (int w = setOffsets[f][row]; w < setOffsets[f][row + 1]; w++) {
+                long word = setWords[f][w];
+                int base = (w - setOffsets[f][row]) << 6;
+                while (word != 0) {
+                    featureValues.add(dictionary[base + Long.numberOfTrailingZeros(word)]);
+                    word &= word - 1;
+                }
+            }
+            values.put(ScoringModel.SET_FEATURES[f], featureValues);
+        }
+        String rowMeetingType = valueOf(MEETING_TYPES, meetingType[row]);
+        values.put(Attribute.MEETING_TYPE, rowMeetingType == null ? Set.of() : Set.of(rowMeetingType));
+        return new ProfileSource(userIds[row], valueOf(ROLES, role[row]), rowMeetingType,
+                valueOf(LOCATIONS, location[row]), yearsOfExperience[row],
+                Double.isNaN(latitude[row]) ? null : latitude[row],
+                Double.isNaN(longitude[row]) ? null : longitude[row],
+                values);
+    }
+
+    private String valueOf(int dictionary, int id) {
+        return id < 0 ? null : dictionaries[dictionary][id];
+    }
+
+    public void write(Path file) throws IOException {
+        byte[][][] encoded = new byte[dictionaries.length][][];
+        long bytes = 4 + 4 + 8 + 4;
+        for (int d = 0; d < dictionaries.length; d++) {
+            encoded[d] = new byte[dictionaries[d].length][];
+            bytes += 4;
+            for (int i = 0; i < dictionaries[d].length; i++) {
+                encoded[d][i] = dictionaries[d][i].getBytes(StandardCharsets.UTF_8);
+                bytes += 4 + encoded[d][i].length;
+            }
+        }
+        bytes += 4 + (long) size * (8 + 4 + 4 + 4 + 4 + 8 + 8);
+        for (int f = 0; f < setWords.length; f++) {
+            bytes += 4L * (size + 1) + 8L * setWords[f].length;
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("Match snapshot of " + bytes + " bytes is too large for one mapping");
+        }
+
+        // written next to the target and moved over it, so a crash mid-write never leaves a torn file
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(takenAt.toEpochMilli()).putInt(dictionaries.length);
+            for (byte[][] dictionary : encoded) {
+                buffer.putInt(dictionary.length);
+                for (byte[] value : dictionary) {
+                    buffer.putInt(value.length).put(value);
+                }
+            }
+            buffer.putInt(size);
+            put(buffer, userIds);
+            put(buffer, role);
+            put(buffer, meetingType);
+            put(buffer, location);
+            put(buffer, yearsOfExperience);
+            put(buffer, latitude);
+            put(buffer, longitude);
+            for (int f = 0; f < setWords.length; f++) {
+                put(buffer, setOffsets[f]);
+                put(buffer, setWords[f]);
+            }
+            buffer.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static MatchSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IOException(file + " is not a match snapshot this version can read");
+            }
+            Instant takenAt = Instant.ofEpochMilli(buffer.getLong());
+            String[][] dictionaries = new String[buffer.getInt()][];
+            if (dictionaries.length != FIRST_SET + ScoringModel.SET_FEATURES.length) {
+                throw new IOException(file + " was written for a different set of match attributes");
+            }
+            for (int d = 0; d < dictionaries.length; d++) {
+                dictionaries[d] = new String[buffer.getInt()];
+                for (int i = 0; i < dictionaries[d].length; i++) {
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    dictionaries[d][i] = new String(value, StandardCharsets.UTF_8);
+                }
+            }
+            MatchSnapshot snapshot = new MatchSnapshot(takenAt, dictionaries, buffer.getInt());
+            get(buffer, snapshot.userIds);
+            get(buffer, snapshot.role);
+            get(buffer, snapshot.meetingType);
+            get(buffer, snapshot.location);
+            get(buffer, snapshot.yearsOfExperience);
+            get(buffer, snapshot.latitude);
+            get(buffer, snapshot.longitude);
+            for (int f = 0; f < snapshot.setWords.length; f++) {
+                get(buffer, snapshot.setOffsets[f]);
+                snapshot.setWords[f] = new long[snapshot.setOffsets[f][snapshot.size]];
+                get(buffer, snapshot.setWords[f]);
+            }
+            return snapshot;
+        } catch (RuntimeException e) { // a truncated file runs off the end of the buffer
+            throw new IOException(file + " is not a readable match snapshot", e);
+        }
+    }
+
+    private static void put(ByteBuffer buffer, long[] values) {
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+    }
+
+    private static void put(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    private static void put(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+
+    private static void get(ByteBuffer buffer, long[] values) {
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+    }
+
+    private static void get(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    private static void get(ByteBuffer buffer, double[] values) {
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * Double.BYTES);
+    }
+
+    // Fills the columns row by row; MatchIndex feeds it its profiles under the index lock
+    static final class Builder {
+
+        private final MatchSnapshot snapshot;
+        private final long[][] words = new long[ScoringModel.SET_FEATURES.length][];
+        private int rows;
+
+        Builder(Instant takenAt, int size, AttributeDictionary roles, AttributeDictionary meetingTypes,
+                AttributeDictionary locations, Map<Attribute, AttributeDictionary> attributes) {
+            String[][] dictionaries = new String[FIRST_SET + ScoringModel.SET_FEATURES.length][];
+            dictionaries[ROLES] = roles.values();
+            dictionaries[MEETING_TYPES] = meetingTypes.values();
+            dictionaries[LOCATIONS] = locations.values();
+            for (int f = 0; f < ScoringModel.SET_FEATURES.length; f++) {
+                dictionaries[FIRST_SET + f] = attributes.get(ScoringModel.SET_FEATURES[f]).values();
+                words[f] = new long[Math.max(16, size)];
+            }
+            this.snapshot = new MatchSnapshot(takenAt, dictionaries, size);
+        }
+
+        void add(int roleId, MatchProfile profile, Double latitude, Double longitude) {
+            int row = rows++;
+            snapshot.userIds[row] = profile.getUserId();
+            snapshot.role[row] = roleId;
+            snapshot.meetingType[row] = profile.getMeetingType();
+            snapshot.location[row] = profile.getLocation();
+            snapshot.yearsOfExperience[row] = profile.getYearsOfExperience();
+            snapshot.latitude[row] = latitude == null ? Double.NaN : latitude;
+            snapshot.longitude[row] = longitude == null ? Double.NaN : longitude;
+            for (int f = 0; f < words.length; f++) {
+                long[] bits = profile.getSets()[f];
+                int start = snapshot.setOffsets[f][row];
+                if (start + bits.length > words[f].length) {
+                    words[f] = Arrays.copyOf(words[f], Math.max(start + bits.length, words[f].length * 2));
+                }
+                System.arraycopy(bits, 0, words[f], start, bits.length);
+                snapshot.setOffsets[f][row + 1] = start + bits.length;
+            }
+        }
+
+        MatchSnapshot build() {
+            if (rows != snapshot.size) {
+                throw new IllegalStateException("Expected " + snapshot.size + " rows, got " + rows);
+            }
+            for (int f = 0; f < words.length; f++) {
+                snapshot.setWords[f] = Arrays.copyOf(words[f], snapshot.setOffsets[f][rows]);
+            }
+            return snapshot;
+        }
+    }
+}
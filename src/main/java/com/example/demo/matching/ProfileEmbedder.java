@@ -0,0 +1,110 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Turns a profile's free text (personal statement, interests, skills) into a fixed-length unit vector
+// with the hashing trick: every token is hashed to a dimension and a sign, weighted by 1 + log(count).
+// Interests and skills also contribute their whole value as one token, so "machine learning" as a
+// skill is closer to the same skill than to a statement that merely says "machine".
+// Stateless and model free, so any user can be embedded at any time.
+public final class ProfileEmbedder {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^a-z0-9+#]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "with", "that", "this", "have", "has", "from", "are", "was", "were", "you",
+            "your", "our", "about", "into", "they", "their", "them", "been", "more", "also", "will", "who",
+            "what", "which", "want", "would", "like", "can", "not", "but", "all", "any", "how", "its", "out");
+
+    private static final float VALUE_WEIGHT = 2f;
+
+    private final int dimensions;
+
+    public ProfileEmbedder(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    // Unit-length vector, or null when the profile has no usable text
+    public float[] embed(User user) {
+        return embed(user.getPersonalStatement(), user.getInterests(), user.getSkills());
+    }
+
+    public float[] embed(String personalStatement, List<String> interests, List<String> skills) {
+        Map<String, Integer> tokens = new HashMap<>();
+        addWords(tokens, personalStatement);
+        addValues(tokens, "interest:", interests);
+        addValues(tokens, "skill:", skills);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        float[] vector = new float[dimensions];
+        tokens.forEach((token, count) -> {
+            // whole values are the only tokens with a prefix, words never contain ':'
+            float weight = (token.indexOf(':') >= 0 ? VALUE_WEIGHT : 1f) * (1 + (float) Math.log(count));
+            long hash = hash(token);
+            int dimension = (int) ((hash >>> 1) % dimensions);
+            vector[dimension] += (hash & 1) == 0 ? weight : -weight;
+        });
+
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            return null;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    private static void addValues(Map<String, Integer> tokens, String prefix, List<String> values) {
+        if (values == null) {
+            return;
+        }
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                tokens.merge(prefix + value.trim().toLowerCase(Locale.ROOT), 1, Integer::sum);
+                addWords(tokens, value);
+            }
+        }
+    }
+
+    private static void addWords(Map<String, Integer> tokens, String text) {
+        if (text == null) {
+            return;
+        }
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                tokens.merge(word, 1, Integer::sum);
+            }
+        }
+    }
+
+    // FNV-1a over the characters, finished with a 64-bit mixer so nearby strings spread out
+    private static long hash(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
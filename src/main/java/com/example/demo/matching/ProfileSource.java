@@ -0,0 +1,68 @@
+package com.example.demo.matching;
+
+import com.example.demo.dto.UserMatchFields;
+import com.example.demo.matching.MatchIndex.Attribute;
+import com.example.demo.models.User;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// The fields of one user that MatchIndex reads, with attribute values already normalized.
+// Built from an entity, from the projection queries the index loads with, or from a snapshot row,
+// so the index itself never needs a User to hang on to.
+record ProfileSource(
+        Long userId,
+        String role,
+        String meetingType,
+        String location,
+        int yearsOfExperience,
+        Double latitude,
+        Double longitude,
+        Map<Attribute, Set<String>> values) {
+
+    static ProfileSource of(User user) {
+        return of(user.getId(), user.getRole(), user.getMeetingType(), user.getLocation(), user.getYearsOfExperience(),
+                user.getLatitude(), user.getLongitude(), user.getAvailability(), user.getCodingLanguage(),
+                user.getExpertise(), user.getInterests(), user.getSkills());
+    }
+
+    static ProfileSource of(UserMatchFields fields, List<String> availability, List<String> codingLanguage,
+                            List<String> expertise) {
+        return of(fields.id(), fields.role(), fields.meetingType(), fields.location(), fields.yearsOfExperience(),
+                fields.latitude(), fields.longitude(), availability, codingLanguage, expertise, fields.interests(),
+                fields.skills());
+    }
+
+    private static ProfileSource of(Long userId, String role, String meetingType, String location,
+                                    int yearsOfExperience, Double latitude, Double longitude,
+                                    Collection<String> availability, Collection<String> codingLanguage,
+                                    Collection<String> expertise, Collection<String> interests,
+                                    Collection<String> skills) {
+        Map<Attribute, Set<String>> values = new EnumMap<>(Attribute.class);
+        values.put(Attribute.AVAILABILITY, normalizeAll(availability));
+        values.put(Attribute.CODING_LANGUAGE, normalizeAll(codingLanguage));
+        values.put(Attribute.EXPERTISE, normalizeAll(expertise));
+        values.put(Attribute.INTERESTS, normalizeAll(interests));
+        values.put(Attribute.SKILLS, normalizeAll(skills));
+        values.put(Attribute.MEETING_TYPE, normalizeAll(meetingType == null ? List.of() : List.of(meetingType)));
+        return new ProfileSource(userId, MatchIndex.normalize(role), meetingType, location, yearsOfExperience,
+                latitude, longitude, values);
+    }
+
+    private static Set<String> normalizeAll(Collection<String> values) {
+        if (values == null) {
+            return Set.of();
+        }
+        Set<String> normalized = new HashSet<>();
+        for (String value : values) {
+            if (value != null) {
+                normalized.add(MatchIndex.normalize(value));
+            }
+        }
+        return normalized;
+    }
+}
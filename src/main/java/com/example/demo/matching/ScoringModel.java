@@ -0,0 +1,126 @@
+package com.example.demo.matching;
+
+import com.example.demo.matching.MatchIndex.Attribute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+// Weighted match score of a mentee against a mentor, in points. Each weight is configurable
+// (matching.scoring.*) and 0 switches a feature off:
+//   - meeting type and location: full weight when equal
+//   - availability, coding language, expertise, interests, skills: weight times Jaccard overlap
+//   - experience: minus the penalty for every year the mentor is less than min-gap years ahead
+// score() rates one pair, scoreAll() a whole MatchColumns block feature by feature. Both run the
+// same float operations in the same order, so a pair always gets the same score either way.
+@Component
+public class ScoringModel {
+
+    static final Attribute[] SET_FEATURES = {
+            Attribute.AVAILABILITY, Attribute.CODING_LANGUAGE, Attribute.EXPERTISE, Attribute.INTERESTS, Attribute.SKILLS
+    };
+
+    private final float meetingTypeWeight;
+    private final float locationWeight;
+    private final float[] setWeights; // same order as SET_FEATURES
+    private final int experienceMinGap;
+    private final float experienceGapPenalty;
+
+    public ScoringModel(@Value("${matching.scoring.meeting-type:15}") float meetingType,
+                        @Value("${matching.scoring.location:5}") float location,
+                        @Value("${matching.scoring.availability:20}") float availability,
+                        @Value("${matching.scoring.coding-language:25}") float codingLanguage,
+                        @Value("${matching.scoring.expertise:20}") float expertise,
+                        @Value("${matching.scoring.interests:5}") float interests,
+                        @Value("${matching.scoring.skills:10}") float skills,
+                        @Value("${matching.scoring.experience-min-gap:2}") int experienceMinGap,
+                        @Value("${matching.scoring.experience-gap-penalty:5}") float experienceGapPenalty) {
+        this.meetingTypeWeight = meetingType;
+        this.locationWeight = location;
+        this.setWeights = new float[]{availability, codingLanguage, expertise, interests, skills};
+        this.experienceMinGap = experienceMinGap;
+        this.experienceGapPenalty = experienceGapPenalty;
+    }
+
+    public int score(MatchProfile mentee, MatchProfile mentor) {
+        float score = equalTerm(meetingTypeWeight, mentee.getMeetingType(), mentor.getMeetingType());
+        score += equalTerm(locationWeight, mentee.getLocation(), mentor.getLocation());
+        long[][] menteeSets = mentee.getSets();
+        long[][] mentorSets = mentor.getSets();
+        for (int f = 0; f < SET_FEATURES.length; f++) {
+            if (setWeights[f] == 0) {
+                continue;
+            }
+            int shared = MatchProfile.overlap(menteeSets[f], mentorSets[f]);
+            int union = mentee.getCardinalities()[f] + mentor.getCardinalities()[f] - shared;
+            score += jaccardTerm(setWeights[f], shared, union);
+        }
+        score -= experienceTerm(mentor.getYearsOfExperience() - mentee.getYearsOfExperience());
+        return Math.round(score);
+    }
+
+    // Scores of the mentee against every row of `mentors`, indexed by row
+    public int[] scoreAll(MatchProfile mentee, MatchColumns mentors) {
+        int n = mentors.size;
+        float[] score = new float[n];
+
+        int meetingType = mentee.getMeetingType();
+        int[] meetingTypes = mentors.meetingType;
+        for (int i = 0; i < n; i++) {
+            score[i] = equalTerm(meetingTypeWeight, meetingType, meetingTypes[i]);
+        }
+        int location = mentee.getLocation();
+        int[] locations = mentors.location;
+        for (int i = 0; i < n; i++) {
+            score[i] += equalTerm(locationWeight, location, locations[i]);
+        }
+
+        int[] shared = new int[n];
+        for (int f = 0; f < SET_FEATURES.length; f++) {
+            if (setWeights[f] == 0) {
+                continue;
+            }
+            MatchColumns.SetColumn column = mentors.sets[f];
+            long[] menteeBits = mentee.getSets()[f];
+            Arrays.fill(shared, 0);
+            int words = Math.min(menteeBits.length, column.words);
+            for (int w = 0; w < words; w++) {
+                long word = menteeBits[w];
+                if (word == 0) {
+                    continue;
+                }
+                long[] bits = column.bits;
+                int base = w * n;
+                for (int i = 0; i < n; i++) {
+                    shared[i] += Long.bitCount(word & bits[base + i]);
+                }
+            }
+            float weight = setWeights[f];
+            int menteeCardinality = mentee.getCardinalities()[f];
+            int[] cardinality = column.cardinality;
+            for (int i = 0; i < n; i++) {
+                score[i] += jaccardTerm(weight, shared[i], menteeCardinality + cardinality[i] - shared[i]);
+            }
+        }
+
+        int years = mentee.getYearsOfExperience();
+        int[] mentorYears = mentors.yearsOfExperience;
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = Math.round(score[i] - experienceTerm(mentorYears[i] - years));
+        }
+        return result;
+    }
+
+    private static float equalTerm(float weight, int menteeValue, int mentorValue) {
+        return menteeValue >= 0 && menteeValue == mentorValue ? weight : 0f;
+    }
+
+    private static float jaccardTerm(float weight, int shared, int union) {
+        return union == 0 ? 0f : weight * shared / union;
+    }
+
+    private float experienceTerm(int gap) {
+        return gap < experienceMinGap ? experienceGapPenalty * (experienceMinGap - gap) : 0f;
+    }
+}
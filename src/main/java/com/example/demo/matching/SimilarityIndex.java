@@ -0,0 +1,381 @@
+package com.example.demo.matching;
+
+import com.example.demo.dto.UserProfileText;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Approximate nearest-neighbour index over mentor profile embeddings (see ProfileEmbedder), for
+// "mentors with a profile like this one" lookups. Random-hyperplane LSH: each of `tables` hash tables
+// keys a mentor by the signs of `hashBits` random projections of its vector, so similar vectors tend
+// to share a bucket. A query visits its own bucket in every table plus the buckets one flip away on
+// its `probes` least certain bits, then ranks only those candidates by exact dot product.
+// Vectors are stored quantized to bytes in one flat array. Below `exactBelow` mentors the index just
+// scans everything, which is exact and at that size no slower.
+@Component
+public class SimilarityIndex {
+
+    private static final float QUANTIZATION = 127f;
+    private static final long FREE = Long.MIN_VALUE;
+    private static final int PAGE_SIZE = 1000;
+
+    // fixed so bucket layout, and therefore results, are reproducible across restarts
+    private static final long HYPERPLANE_SEED = 42;
+
+    private final UserRepository userRepository;
+    private final ProfileEmbedder embedder;
+    private final int dimensions;
+    private final int tables;
+    private final int hashBits;
+    private final int probes;
+    private final int exactBelow;
+    private final float[][] hyperplanes; // tables * hashBits of them, table-major
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final List<Map<Integer, IntList>> buckets = new ArrayList<>();
+    private final IntList freeSlots = new IntList();
+    private long[] ids;
+    private byte[] vectors;   // slot-major, `dimensions` bytes per slot
+    private int[] signatures; // slot-major, one per table
+    private int slotCount;    // slots ever handed out, free ones included
+
+    private volatile boolean loaded;
+
+    public SimilarityIndex(UserRepository userRepository,
+                           @Value("${matching.similar.dimensions:128}") int dimensions,
+                           @Value("${matching.similar.tables:32}") int tables,
+                           @Value("${matching.similar.hash-bits:13}") int hashBits,
+                           @Value("${matching.similar.probes:6}") int probes,
+                           @Value("${matching.similar.exact-below:5000}") int exactBelow) {
+        this.userRepository = userRepository;
+        this.embedder = new ProfileEmbedder(dimensions);
+        this.dimensions = dimensions;
+        this.tables = tables;
+        this.hashBits = hashBits;
+        this.probes = Math.min(probes, hashBits);
+        this.exactBelow = exactBelow;
+
+        Random random = new Random(HYPERPLANE_SEED);
+        this.hyperplanes = new float[tables * hashBits][dimensions];
+        for (float[] plane : hyperplanes) {
+            for (int i = 0; i < dimensions; i++) {
+                plane[i] = (float) random.nextGaussian();
+            }
+        }
+        for (int t = 0; t < tables; t++) {
+            buckets.add(new HashMap<>());
+        }
+        allocate(1024);
+    }
+
+    // Indexes mentors with any profile text; anybody else is dropped from the index
+    public void index(User user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        float[] vector = "mentor".equalsIgnoreCase(user.getRole() == null ? null : user.getRole().trim())
+                ? embedder.embed(user) : null;
+        lock.writeLock().lock();
+        try {
+            removeSlot(user.getId());
+            if (vector != null) {
+                addSlot(user.getId(), vector);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeSlot(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rebuild(Iterable<User> users) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            users.forEach(this::index); // reentrant
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Cold load from the database: mentors' profile text through a projection, a keyset page at a time
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            long afterId = 0;
+            Slice<UserProfileText> page;
+            do {
+                page = userRepository.findMentorProfileTextAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+                for (UserProfileText text : page) {
+                    float[] vector = embedder.embed(text.personalStatement(), text.interests(), text.skills());
+                    if (vector != null) {
+                        addSlot(text.id(), vector);
+                    }
+                    afterId = text.id();
+                }
+            } while (page.hasNext());
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        slotById.clear();
+        buckets.forEach(Map::clear);
+        freeSlots.clear();
+        slotCount = 0;
+    }
+
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Up to k indexed mentors most similar to the user (never the user themself), best first.
+    // Entry scores are quantized dot products; similarity(score) turns one back into a cosine.
+    public TopKHeap.Entry[] similar(User user, int k) {
+        ensureLoaded();
+        float[] query = embedder.embed(user);
+        if (query == null) {
+            return new TopKHeap.Entry[0];
+        }
+        lock.readLock().lock();
+        try {
+            if (slotById.size() < exactBelow) {
+                return scan(query, user.getId(), k);
+            }
+            return rank(candidates(query), quantize(query), user.getId(), k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Brute-force ranking over every indexed mentor, the ground truth for similar()
+    public TopKHeap.Entry[] exact(User user, int k) {
+        ensureLoaded();
+        float[] query = embedder.embed(user);
+        if (query == null) {
+            return new TopKHeap.Entry[0];
+        }
+        lock.readLock().lock();
+        try {
+            return scan(query, user.getId(), k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static double similarity(int score) {
+        return score / (double) (QUANTIZATION * QUANTIZATION);
+    }
+
+    public void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    load();
+                }
+            }
+        }
+    }
+
+    private TopKHeap.Entry[] scan(float[] query, Long self, int k) {
+        IntList all = new IntList();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != FREE) {
+                all.add(slot);
+            }
+        }
+        return rank(all, quantize(query), self, k);
+    }
+
+    // Slots in the query's buckets and in the nearby buckets, sorted and without duplicates
+    private IntList candidates(float[] query) {
+        IntList candidates = new IntList();
+        float[] margins = new float[hashBits];
+        for (int t = 0; t < tables; t++) {
+            int signature = 0;
+            for (int b = 0; b < hashBits; b++) {
+                float projection = dot(hyperplanes[t * hashBits + b], query);
+                margins[b] = Math.abs(projection);
+                if (projection >= 0) {
+                    signature |= 1 << b;
+                }
+            }
+            Map<Integer, IntList> table = buckets.get(t);
+            candidates.addAll(table.get(signature));
+            // the bits closest to flipping are the likeliest to differ for a near neighbour
+            for (int p = 0; p < probes; p++) {
+                int weakest = 0;
+                for (int b = 1; b < hashBits; b++) {
+                    if (margins[b] < margins[weakest]) {
+                        weakest = b;
+                    }
+                }
+                margins[weakest] = Float.MAX_VALUE;
+                candidates.addAll(table.get(signature ^ (1 << weakest)));
+            }
+        }
+        candidates.sortDistinct();
+        return candidates;
+    }
+
+    private TopKHeap.Entry[] rank(IntList slots, byte[] query, Long self, int k) {
+        TopKHeap heap = new TopKHeap(k);
+        for (int i = 0; i < slots.size; i++) {
+            int slot = slots.values[i];
+            if (self != null && ids[slot] == self) {
+                continue;
+            }
+            int base = slot * dimensions;
+            int score = 0;
+            for (int d = 0; d < dimensions; d++) {
+                score += query[d] * vectors[base + d];
+            }
+            if (score > 0) { // nothing in common is not similar
+                heap.offer(score, ids[slot]);
+            }
+        }
+        return heap.drain();
+    }
+
+    private void addSlot(long userId, float[] vector) {
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.values[--freeSlots.size];
+        } else {
+            if (slotCount == ids.length) {
+                allocate(ids.length * 2);
+            }
+            slot = slotCount++;
+        }
+        ids[slot] = userId;
+        byte[] quantized = quantize(vector);
+        System.arraycopy(quantized, 0, vectors, slot * dimensions, dimensions);
+        for (int t = 0; t < tables; t++) {
+            int signature = 0;
+            for (int b = 0; b < hashBits; b++) {
+                if (dot(hyperplanes[t * hashBits + b], vector) >= 0) {
+                    signature |= 1 << b;
+                }
+            }
+            signatures[slot * tables + t] = signature;
+            buckets.get(t).computeIfAbsent(signature, s -> new IntList()).add(slot);
+        }
+        slotById.put(userId, slot);
+    }
+
+    private void removeSlot(long userId) {
+        Integer slot = slotById.remove(userId);
+        if (slot == null) {
+            return;
+        }
+        for (int t = 0; t < tables; t++) {
+            int signature = signatures[slot * tables + t];
+            IntList bucket = buckets.get(t).get(signature);
+            bucket.removeValue(slot);
+            if (bucket.size == 0) {
+                buckets.get(t).remove(signature);
+            }
+        }
+        ids[slot] = FREE;
+        freeSlots.add(slot);
+    }
+
+    private void allocate(int slots) {
+        ids = ids == null ? new long[slots] : Arrays.copyOf(ids, slots);
+        vectors = vectors == null ? new byte[slots * dimensions] : Arrays.copyOf(vectors, slots * dimensions);
+        signatures = signatures == null ? new int[slots * tables] : Arrays.copyOf(signatures, slots * tables);
+    }
+
+    private byte[] quantize(float[] vector) {
+        byte[] quantized = new byte[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            quantized[i] = (byte) Math.round(vector[i] * QUANTIZATION);
+        }
+        return quantized;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    // Growable int array, enough of a list for bucket members and candidate slots
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(IntList other) {
+            if (other == null) {
+                return;
+            }
+            if (size + other.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size + other.size, size * 2));
+            }
+            System.arraycopy(other.values, 0, values, size, other.size);
+            size += other.size;
+        }
+
+        // order does not matter in a bucket, so fill the hole with the last value
+        void removeValue(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+
+        void sortDistinct() {
+            Arrays.sort(values, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || values[i] != values[i - 1]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            size = distinct;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.matching;
+
+// Fixed-capacity min-heap of (score, userId) pairs that keeps the k best entries seen.
+// Ranking is score descending, then user id ascending, so results are deterministic and
+// a (score, id) pair is a stable keyset cursor. Backed by primitive arrays, no boxing.
+public class TopKHeap {
+
+    private final int[] scores;
+    private final long[] ids;
+    private int size;
+
+    public TopKHeap(int capacity) {
+        scores = new int[capacity];
+        ids = new long[capacity];
+    }
+
+    public void offer(int score, long id) {
+        if (size < scores.length) {
+            scores[size] = score;
+            ids[size] = id;
+            siftUp(size++);
+        } else if (size > 0 && ranksBefore(score, id, scores[0], ids[0])) {
+            scores[0] = score;
+            ids[0] = id;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == scores.length;
+    }
+
+    // Entries in rank order (best first). Empties the heap.
+    public Entry[] drain() {
+        Entry[] ranked = new Entry[size];
+        for (int i = size - 1; i >= 0; i--) {
+            ranked[i] = new Entry(scores[0], ids[0]);
+            size--;
+            scores[0] = scores[size];
+            ids[0] = ids[size];
+            siftDown(0);
+        }
+        return ranked;
+    }
+
+    // true if (score, id) ranks strictly before (otherScore, otherId)
+    public static boolean ranksBefore(int score, long id, int otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(scores[parent], ids[parent], scores[i], ids[i])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            // the child that ranks worst belongs closest to the root
+            int worst = left;
+            int right = left + 1;
+            if (right < size && ranksBefore(scores[left], ids[left], scores[right], ids[right])) {
+                worst = right;
+            }
+            if (!ranksBefore(scores[i], ids[i], scores[worst], ids[worst])) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+    }
+
+    public record Entry(int score, long id) {
+    }
+}
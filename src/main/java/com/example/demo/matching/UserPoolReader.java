@@ -0,0 +1,66 @@
+package com.example.demo.matching;
+
+import com.example.demo.dto.UserAttributeValue;
+import com.example.demo.dto.UserMatchFields;
+import com.example.demo.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Reads the user pool for MatchIndex through projections, a keyset page at a time: one statement for
+// the user columns plus one per element collection, and no entities in the persistence context.
+final class UserPoolReader {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final UserRepository userRepository;
+
+    UserPoolReader(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    // Every user, or with a `since` only the ones inserted or updated at or after it
+    void forEach(Instant since, Consumer<ProfileSource> consumer) {
+        long afterId = 0;
+        Slice<UserMatchFields> page;
+        do {
+            PageRequest pageRequest = PageRequest.of(0, PAGE_SIZE);
+            page = since == null ? userRepository.findMatchFieldsAfter(afterId, pageRequest)
+                    : userRepository.findMatchFieldsUpdatedSinceAfter(since, afterId, pageRequest);
+            if (page.isEmpty()) {
+                break;
+            }
+            List<Long> ids = page.map(UserMatchFields::id).toList();
+            Map<Long, List<String>> availability = byUser(userRepository.findAvailabilityIn(ids));
+            Map<Long, List<String>> codingLanguages = byUser(userRepository.findCodingLanguagesIn(ids));
+            Map<Long, List<String>> expertise = byUser(userRepository.findExpertiseIn(ids));
+            for (UserMatchFields fields : page) {
+                consumer.accept(ProfileSource.of(fields, availability.get(fields.id()),
+                        codingLanguages.get(fields.id()), expertise.get(fields.id())));
+            }
+            afterId = ids.get(ids.size() - 1);
+        } while (page.hasNext());
+    }
+
+    // Ids of every user, sorted
+    long[] ids() {
+        long[] ids = userRepository.findAllIds().stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static Map<Long, List<String>> byUser(List<UserAttributeValue> values) {
+        Map<Long, List<String>> byUser = new HashMap<>();
+        for (UserAttributeValue value : values) {
+            byUser.computeIfAbsent(value.userId(), id -> new ArrayList<>()).add(value.value());
+        }
+        return byUser;
+    }
+}
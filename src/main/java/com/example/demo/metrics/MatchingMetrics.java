@@ -0,0 +1,43 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Timers per matching stage and a per-request distribution of candidates examined.
+// Every meter is tagged with the matching operation, so p99 outliers can be traced to the
+// stage (candidate fetch, scoring, selection, load) that caused them.
+@Component
+public class MatchingMetrics {
+
+    private final MeterRegistry registry;
+
+    public MatchingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T time(String operation, String stage, Supplier<T> work) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return work.get();
+        } finally {
+            sample.stop(Timer.builder("matching.stage")
+                    .description("Time spent in one stage of a matching operation")
+                    .tag("operation", operation)
+                    .tag("stage", stage)
+                    .register(registry));
+        }
+    }
+
+    public void candidatesExamined(String operation, long candidates) {
+        DistributionSummary.builder("matching.candidates")
+                .description("Candidates examined by one matching operation")
+                .baseUnit("candidates")
+                .tag("operation", operation)
+                .register(registry)
+                .record(candidates);
+    }
+}
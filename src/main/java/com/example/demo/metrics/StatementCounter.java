@@ -0,0 +1,45 @@
+package com.example.demo.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.util.Map;
+
+// Counts the SQL statements Hibernate prepares on the current thread between begin() and end().
+// Registers itself as Hibernate's statement inspector; statements issued outside a counting
+// scope (startup, background workers) pass through untouched.
+@Component
+public class StatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    public void begin() {
+        COUNT.set(new long[1]);
+    }
+
+    public long end() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
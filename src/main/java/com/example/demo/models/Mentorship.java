@@ -0,0 +1,39 @@
+package com.example.demo.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+// One row per mentor/mentee pair. The primary key (mentor_id, mentee_id) serves lookups from the
+// mentor side and the secondary index serves the mentee side, so adding, removing or checking a
+// pair touches a single row instead of rewriting both users' id lists.
+@Entity
+@Table(name = "mentorship", indexes = {
+        @Index(name = "idx_mentorship_mentee_mentor", columnList = "mentee_id, mentor_id")
+})
+@Data
+@NoArgsConstructor
+public class Mentorship implements Persistable<MentorshipId> {
+    @EmbeddedId
+    private MentorshipId id;
+
+    // ids are assigned, so tell Spring Data to persist (plain INSERT) rather than merge (SELECT + INSERT)
+    @Transient
+    private boolean persisted;
+
+    public Mentorship(Long mentorId, Long menteeId) {
+        this.id = new MentorshipId(mentorId, menteeId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
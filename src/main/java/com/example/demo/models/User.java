@@ -1,13 +1,30 @@
 package com.example.demo.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
+@DynamicUpdate // UPDATEs name only the changed columns, so a one-field edit is a one-column write
+@JsonIgnoreProperties({"mentees", "mentors"}) // relationships live in the mentorship table
+@Table(indexes = {
+        @Index(name = "uk_user_email", columnList = "email", unique = true),
+        @Index(name = "idx_user_role_mentee_count", columnList = "role, mentee_count"),
+        @Index(name = "idx_user_role_mentor_count", columnList = "role, mentor_count"),
+        @Index(name = "idx_user_updated_at", columnList = "updated_at")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -20,11 +37,12 @@ public class User {
     @Column(name = "name")
     private String name;
 
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // accepted on register, never echoed back
     @Column(name = "password")
-    private String password;
+    private String password; // BCrypt hash; rows seeded in plain text are rehashed on first login
 
     @Column(name = "email")
-    private String email;
+    private String email; // stored trimmed and lower case, unique
 
     @Column(name= "certifications")
     private String certifications;
@@ -33,7 +51,10 @@ public class User {
     private String profilePic;
 
 
+    // Collections are fetched by subselect: touching one user's collection loads it for every user
+    // returned by the same query, so listing N users costs one statement per collection, not per user.
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @Column(name = "expertise")
     private List<String> expertise; // List of areas of expertise
 
@@ -43,14 +64,23 @@ public class User {
     @Column(name = "location")
     private String location;
 
-    @Column(name ="role")
-    private String role;
+    // optional, only used to bucket in-person matches by distance
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name ="role", length = 16)
+    private String role; // stored lower case, "mentor" or "mentee"
 
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @Column(name = "coding_language")
     private List<String> codingLanguage;
 
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @Column(name = "availability")
     private List<String> availability; // part time, full time, on demand
 
@@ -58,15 +88,25 @@ public class User {
     @Column(name = "meeting_type")
     private String meetingType; // "virtual" or "in-person"
 
-   @ElementCollection
-   @CollectionTable(name = "mentee_ids", joinColumns = @JoinColumn(name = "user_id"))
-   @Column(name = "mentee_id")
-   private List<Long> mentees;
+    @Column(name = "capacity")
+    private Integer capacity; // max mentees for a mentor, null means the configured default
+
+    // Denormalized mentorship counts so "has open slots" is an indexed column comparison.
+    // Maintained with single-row UPDATEs next to inserts/deletes in the mentorship table, and never
+    // written by saving the entity, so a profile edit cannot overwrite a count that moved meanwhile.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "mentee_count", nullable = false, updatable = false)
+    private int menteeCount;
 
-   @ElementCollection
-   @CollectionTable(name = "mentor_ids", joinColumns = @JoinColumn(name = "user_id"))
-   @Column(name = "mentor_id")
-   private List<Long> mentors;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "mentor_count", nullable = false, updatable = false)
+    private int mentorCount;
+
+    // Optimistic lock for profile edits; the counters above do not take part in it
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
 
 
    private String personalStatement;
@@ -76,5 +116,23 @@ public class User {
 
    private List <String> skills;
 
-
+    // Set on every insert and update, so the match index can catch up on rows changed since its snapshot
+    @JsonIgnore
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+   @PrePersist
+   @PreUpdate
+   public void normalize() {
+       if (role != null) {
+           role = role.trim().toLowerCase(Locale.ROOT);
+       }
+       email = normalizeEmail(email);
+   }
+
+   // Emails are compared case-insensitively; every lookup and write goes through this
+   public static String normalizeEmail(String email) {
+       return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+   }
 }
@@ -0,0 +1,39 @@
+package com.example.demo.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.demo.models.Mentorship;
+import com.example.demo.models.MentorshipId;
+
+public interface MentorshipRepository extends JpaRepository<Mentorship, MentorshipId> {
+
+    // 1 when this call created the pair, 0 when it already existed. A single statement, so two requests
+    // for the same pair cannot both create it or fail on the primary key.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO mentorship (mentor_id, mentee_id) VALUES (:mentorId, :menteeId)",
+            nativeQuery = true)
+    int insertIfAbsent(Long mentorId, Long menteeId);
+
+    @Modifying
+    @Query("DELETE FROM Mentorship m WHERE m.id.mentorId = :mentorId AND m.id.menteeId = :menteeId")
+    int deleteLink(Long mentorId, Long menteeId);
+
+    @Modifying
+    @Query("DELETE FROM Mentorship m WHERE m.id.mentorId = :userId OR m.id.menteeId = :userId")
+    int deleteAllForUser(Long userId);
+
+    @Query("SELECT CASE WHEN m.id.mentorId = :userId THEN m.id.menteeId ELSE m.id.mentorId END FROM Mentorship m "
+            + "WHERE m.id.mentorId = :userId OR m.id.menteeId = :userId")
+    List<Long> findCounterpartIds(Long userId);
+
+    @Query("SELECT m.id FROM Mentorship m WHERE m.id.mentorId IN :mentorIds AND m.id.menteeId IN :menteeIds")
+    List<MentorshipId> findExisting(Collection<Long> mentorIds, Collection<Long> menteeIds);
+
+    @Query("SELECT m.id FROM Mentorship m WHERE m.id.menteeId IN :menteeIds")
+    List<MentorshipId> findExistingForMentees(Collection<Long> menteeIds);
+}
@@ -0,0 +1,182 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.JdbcMapping;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Inserts new users with plain JDBC batches: one batch for the user rows plus one per collection
+// table, instead of a round trip per row (IDENTITY ids keep Hibernate from batching these inserts).
+// Callers own the transaction; the generated ids are set on the passed users.
+// Also edits one user's element collections row by row, where Hibernate would rewrite a whole bag.
+@Repository
+@RequiredArgsConstructor
+public class UserBatchWriter {
+
+    private static final String INSERT_USER = "INSERT INTO user (name, password, email, certifications, profile_pic,"
+            + " years_of_experience, location, latitude, longitude, role, meeting_type, capacity, mentee_count,"
+            + " mentor_count, personal_statement, updated_at, version, interests, skills)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?, 0, ?, ?)";
+
+    public static final String EXPERTISE = "user_expertise";
+    public static final String CODING_LANGUAGE = "user_coding_language";
+    public static final String AVAILABILITY = "user_availability";
+
+    // element collection table -> value column, and how to read the values off a user
+    private static final Map<String, CollectionTable> COLLECTION_TABLES = Map.of(
+            EXPERTISE, new CollectionTable("expertise", User::getExpertise),
+            CODING_LANGUAGE, new CollectionTable("coding_language", User::getCodingLanguage),
+            AVAILABILITY, new CollectionTable("availability", User::getAvailability));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    // interests and skills are single columns whose encoding depends on the dialect (an SQL array on
+    // H2, serialized bytes on MySQL), so they are bound by the same binders Hibernate writes them with
+    private ColumnBinder interests;
+    private ColumnBinder skills;
+
+    @PostConstruct
+    void resolveBinders() {
+        interests = binder("interests");
+        skills = binder("skills");
+    }
+
+    public void insert(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        insertUsers(users);
+        COLLECTION_TABLES.forEach((table, collection) -> insertValues(table, collection, users));
+    }
+
+    // Adds values to one of the user's collection tables; the caller leaves out values already there
+    public void addValues(Long userId, String table, Collection<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (String value : values) {
+            rows.add(new Object[]{userId, value});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (user_id, " + column(table) + ") VALUES (?, ?)", rows);
+    }
+
+    // Deletes every row of the user's collection table holding one of the values
+    public void removeValues(Long userId, String table, Collection<String> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (String value : values) {
+            rows.add(new Object[]{userId, value});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM " + table + " WHERE user_id = ? AND " + column(table) + " = ?", rows);
+    }
+
+    private static String column(String table) {
+        CollectionTable collection = COLLECTION_TABLES.get(table);
+        if (collection == null) {
+            throw new IllegalArgumentException("Not a user collection table: " + table);
+        }
+        return collection.column();
+    }
+
+    private void insertUsers(List<User> users) {
+        users.forEach(User::normalize); // entity callbacks do not run for plain JDBC inserts
+        Timestamp now = Timestamp.from(Instant.now()); // nor does @UpdateTimestamp
+        WrapperOptions options = entityManager.unwrap(SharedSessionContractImplementor.class);
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_USER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getName());
+                        ps.setString(2, user.getPassword());
+                        ps.setString(3, user.getEmail());
+                        ps.setString(4, user.getCertifications());
+                        ps.setString(5, user.getProfilePic());
+                        ps.setInt(6, user.getYearsOfExperience());
+                        ps.setString(7, user.getLocation());
+                        ps.setObject(8, user.getLatitude(), Types.DOUBLE);
+                        ps.setObject(9, user.getLongitude(), Types.DOUBLE);
+                        ps.setString(10, user.getRole());
+                        ps.setString(11, user.getMeetingType());
+                        ps.setObject(12, user.getCapacity(), Types.INTEGER);
+                        ps.setString(13, user.getPersonalStatement());
+                        ps.setTimestamp(14, now);
+                        interests.bind(ps, 15, user.getInterests(), options);
+                        skills.bind(ps, 16, user.getSkills(), options);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            // drivers name the key column differently ("GENERATED_KEY", "ID"), there is only one
+            users.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    private void insertValues(String table, CollectionTable collection, List<User> users) {
+        List<Object[]> rows = new ArrayList<>();
+        for (User user : users) {
+            List<String> values = collection.values().apply(user);
+            if (values != null) {
+                for (String value : values) {
+                    rows.add(new Object[]{user.getId(), value});
+                }
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table + " (user_id, " + collection.column() + ") VALUES (?, ?)",
+                    rows);
+        }
+    }
+
+    private ColumnBinder binder(String attribute) {
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        return new ColumnBinder(sessionFactory.getMappingMetamodel().getEntityDescriptor(User.class)
+                .findAttributeMapping(attribute).getSingleJdbcMapping());
+    }
+
+    private record CollectionTable(String column, Function<User, List<String>> values) {
+    }
+
+    private record ColumnBinder(JdbcMapping mapping) {
+
+        @SuppressWarnings("unchecked")
+        void bind(PreparedStatement ps, int index, Object value, WrapperOptions options) throws SQLException {
+            mapping.getJdbcValueBinder().bind(ps, mapping.convertToRelationalValue(value), index, options);
+        }
+    }
+}
@@ -1,15 +1,155 @@
 package com.example.demo.repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dto.MentorCapacity;
+import com.example.demo.dto.UserAttributeValue;
+import com.example.demo.dto.UserMatchFields;
+import com.example.demo.dto.UserProfileText;
+import com.example.demo.dto.UserSummary;
 import com.example.demo.models.User;
 
 public interface UserRepository extends JpaRepository <User, Long> {
 
-    Optional<User> findByEmailAndPassword(String email, String password);
+    String SUMMARY = "new com.example.demo.dto.UserSummary(u.id, u.name, u.email, u.role, u.location, u.meetingType, "
+            + "u.yearsOfExperience, u.certifications, u.profilePic, u.capacity, u.menteeCount)";
+
+    String MATCH_FIELDS = "new com.example.demo.dto.UserMatchFields(u.id, u.role, u.meetingType, u.location, "
+            + "u.yearsOfExperience, u.latitude, u.longitude, u.interests, u.skills)";
+
     @Query("SELECT u FROM User u WHERE u.email = :email")
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT u.id AS id, u.capacity AS capacity, u.menteeCount AS menteeCount FROM User u WHERE u.role = 'mentor'")
+    List<MentorCapacity> findMentorCapacities();
+
+    @Query("SELECT u FROM User u WHERE u.role = 'mentor' AND u.menteeCount < COALESCE(u.capacity, :defaultCapacity)")
+    List<User> findMentorsWithOpenSlots(int defaultCapacity);
+
+    @Query("SELECT u.id FROM User u WHERE u.role = 'mentor' AND u.menteeCount < COALESCE(u.capacity, :defaultCapacity)")
+    List<Long> findMentorIdsWithOpenSlots(int defaultCapacity);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.role = 'mentor' "
+            + "AND u.menteeCount < COALESCE(u.capacity, :defaultCapacity)")
+    List<Long> findMentorIdsWithOpenSlotsIn(Collection<Long> ids, int defaultCapacity);
+
+    // Keyset pages ordered by id: pass the last id of the previous page as afterId
+    @Query("SELECT " + SUMMARY + " FROM User u WHERE u.role = 'mentor' "
+            + "AND u.menteeCount < COALESCE(u.capacity, :defaultCapacity) AND u.id > :afterId ORDER BY u.id")
+    Slice<UserSummary> findMentorSummariesWithOpenSlotsAfter(int defaultCapacity, long afterId, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.role = 'mentee' AND u.mentorCount = 0")
+    List<User> findMenteesWithoutMentor();
+
+    @Query("SELECT " + SUMMARY + " FROM User u WHERE u.role = 'mentee' AND u.mentorCount = 0 AND u.id > :afterId ORDER BY u.id")
+    Slice<UserSummary> findMenteeSummariesWithoutMentorAfter(long afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY + " FROM User u ORDER BY u.id")
+    List<UserSummary> findAllSummaries();
+
+    @Query("SELECT " + SUMMARY + " FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    Slice<UserSummary> findAllSummariesAfter(long afterId, Pageable pageable);
+
+    @Query("SELECT " + SUMMARY + " FROM User u WHERE u.id = :id")
+    Optional<UserSummary> findSummaryById(Long id);
+
+    @Query("SELECT " + SUMMARY + " FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    // What the match index is built from, a keyset page of ids at a time (see MatchIndex)
+    @Query("SELECT " + MATCH_FIELDS + " FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    Slice<UserMatchFields> findMatchFieldsAfter(long afterId, Pageable pageable);
+
+    @Query("SELECT " + MATCH_FIELDS + " FROM User u WHERE u.updatedAt >= :since AND u.id > :afterId ORDER BY u.id")
+    Slice<UserMatchFields> findMatchFieldsUpdatedSinceAfter(Instant since, long afterId, Pageable pageable);
+
+    // What the similarity index is built from: mentors only, a keyset page of ids at a time
+    @Query("SELECT new com.example.demo.dto.UserProfileText(u.id, u.personalStatement, u.interests, u.skills) "
+            + "FROM User u WHERE u.role = 'mentor' AND u.id > :afterId ORDER BY u.id")
+    Slice<UserProfileText> findMentorProfileTextAfter(long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.demo.dto.UserAttributeValue(u.id, v) FROM User u JOIN u.availability v WHERE u.id IN :ids")
+    List<UserAttributeValue> findAvailabilityIn(Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.dto.UserAttributeValue(u.id, v) FROM User u JOIN u.codingLanguage v WHERE u.id IN :ids")
+    List<UserAttributeValue> findCodingLanguagesIn(Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.dto.UserAttributeValue(u.id, v) FROM User u JOIN u.expertise v WHERE u.id IN :ids")
+    List<UserAttributeValue> findExpertiseIn(Collection<Long> ids);
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    // Both sides of the mentorship graph resolved with one joined statement instead of a lookup per id
+    @Query("SELECT " + SUMMARY + " FROM Mentorship m JOIN User u ON u.id = m.id.menteeId WHERE m.id.mentorId = :mentorId ORDER BY u.id")
+    List<UserSummary> findMenteeSummaries(Long mentorId);
+
+    @Query("SELECT " + SUMMARY + " FROM Mentorship m JOIN User u ON u.id = m.id.mentorId WHERE m.id.menteeId = :menteeId ORDER BY u.id")
+    List<UserSummary> findMentorSummaries(Long menteeId);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    // Compare-and-set, so a concurrent password change is never overwritten by a login's rehash
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int updatePassword(Long id, String oldPassword, String newPassword);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    // Like findExistingIds, but write-locks the rows (FOR UPDATE), lowest id first, until the caller
+    // commits. Callers that go on to update these rows then already hold the exclusive lock they need:
+    // a shared lock here would let two callers both hold it and deadlock upgrading it.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<Long> lockExistingIds(Collection<Long> ids);
+
+    // The ones among these ids that are mentees without a mentor yet
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids AND u.role = 'mentee' AND u.mentorCount = 0")
+    List<Long> findFreeMenteeIdsIn(Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.menteeCount = u.menteeCount + :delta WHERE u.id = :id")
+    int adjustMenteeCount(Long id, int delta);
+
+    // Takes `slots` of the mentor's open slots, or none when that would exceed capacity: the check and the
+    // increment are one statement on one row, so concurrent assignments can never overfill a mentor
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.menteeCount = u.menteeCount + :slots "
+            + "WHERE u.id = :id AND u.menteeCount + :slots <= COALESCE(u.capacity, :defaultCapacity)")
+    int claimMentorSlots(Long id, int slots, int defaultCapacity);
+
+    // Slots the mentor has left, null for an unknown id
+    @Query("SELECT COALESCE(u.capacity, :defaultCapacity) - u.menteeCount FROM User u WHERE u.id = :id")
+    Integer findOpenSlots(Long id, int defaultCapacity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.mentorCount = u.mentorCount + :delta WHERE u.id = :id")
+    int adjustMentorCount(Long id, int delta);
+
+    // Before deleting a user, release the slot they held on the other side of each mentorship
+    @Modifying
+    @Query("UPDATE User u SET u.mentorCount = u.mentorCount - 1 "
+            + "WHERE u.id IN (SELECT m.id.menteeId FROM Mentorship m WHERE m.id.mentorId = :mentorId)")
+    int releaseMenteesOf(Long mentorId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.menteeCount = u.menteeCount - 1 "
+            + "WHERE u.id IN (SELECT m.id.mentorId FROM Mentorship m WHERE m.id.menteeId = :menteeId)")
+    int releaseMentorsOf(Long menteeId);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.demo.security;
+
+// Hashes and verifies user passwords. Stored values that predate hashing (plain text) still verify,
+// and report needsRehash so callers can upgrade them after a successful login.
+public interface PasswordHasher {
+
+    String hash(String rawPassword);
+
+    boolean matches(String rawPassword, String storedPassword);
+
+    // True when the stored value is plain text or was hashed with a weaker setting than the current one
+    boolean needsRehash(String storedPassword);
+}
@@ -0,0 +1,11 @@
+package com.example.demo.security;
+
+import java.time.Instant;
+
+// What a verified session token says about its bearer
+public record TokenClaims(long userId, String role, Instant expiresAt) {
+
+    public boolean hasRole(String expected) {
+        return expected.equalsIgnoreCase(role);
+    }
+}
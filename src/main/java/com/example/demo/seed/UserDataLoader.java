@@ -1,38 +1,99 @@
 package com.example.demo.seed;
 
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.SimilarityIndex;
 import com.example.demo.models.User;
-import com.example.demo.repository.UserRepository; // Ensure this import exists
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.example.demo.repository.UserBatchWriter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import org.springframework.beans.factory.annotation.Autowired; // Import the Autowired annotation
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
+// Streams the seed file and writes users in JDBC batches. Users are read one object at a time,
+// so memory stays flat regardless of file size.
 @Component
 public class UserDataLoader implements CommandLineRunner {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserDataLoader.class);
+
+    @Autowired
+    private UserBatchWriter userBatchWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MatchIndex matchIndex;
+
     @Autowired
-    private UserRepository userRepository; // Inject the UserRepository
+    private SimilarityIndex similarityIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${seed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${seed.resource:classpath:user.json}")
+    private Resource seedResource;
+
+    @Value("${seed.batch-size:1000}")
+    private int batchSize;
 
     @Override
     public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
         try {
-            List<User> users = loadUsers();
-            userRepository.saveAll(users); // Save all users to the database
-            users.forEach(user -> System.out.println("Saved user: " + user.getName()));
+            load(seedResource);
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Failed to seed users from {}", seedResource, e);
         }
     }
 
-    private List<User> loadUsers() throws IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try (InputStream inputStream = getClass().getResourceAsStream("/user.json")) {
-            return objectMapper.readValue(inputStream, new TypeReference<List<User>>() {});
+    // Seeds every user in the resource's top-level JSON array and returns how many were written.
+    // Anything after the closing bracket of that array is ignored.
+    public long load(Resource resource) throws IOException {
+        long started = System.nanoTime();
+        long saved = 0;
+        try (InputStream inputStream = resource.getInputStream();
+             JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Seed file must contain a JSON array of users: " + resource);
+            }
+            List<User> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(objectMapper.readValue(parser, User.class));
+                if (batch.size() == batchSize) {
+                    saved += insert(batch);
+                    batch.clear();
+                }
+            }
+            saved += insert(batch);
         }
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-9);
+        logger.info("Seeded {} users from {} in {} ms ({} users/sec)",
+                saved, resource.getDescription(), Math.round(seconds * 1000), Math.round(saved / seconds));
+        return saved;
+    }
+
+    private int insert(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> userBatchWriter.insert(users));
+        users.forEach(matchIndex::index);
+        users.forEach(similarityIndex::index);
+        return users.size();
     }
 }
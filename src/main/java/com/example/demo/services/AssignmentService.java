@@ -0,0 +1,9 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.BatchAssignmentResultDTO;
+
+import java.util.List;
+
+public interface AssignmentService {
+    BatchAssignmentResultDTO assignCohort(List<Long> menteeIds);
+}
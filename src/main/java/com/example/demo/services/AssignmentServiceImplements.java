@@ -0,0 +1,258 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.AssignmentDTO;
+import com.example.demo.dto.BatchAssignmentResultDTO;
+import com.example.demo.dto.MentorCapacity;
+import com.example.demo.matching.MatchColumns;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchPartition;
+import com.example.demo.matching.MatchProfile;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.TopKHeap;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.MentorshipId;
+import com.example.demo.repository.MentorshipRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Assigns a whole cohort of mentees at once while respecting mentor capacity.
+// Each mentee's best mentors are scored in parallel on a fork-join pool, then a global
+// greedy pass hands out pairs from the highest score down, falling back to a mentee's
+// next preference when its preferred mentor is full. Only mentees without a mentor take part.
+// A mentor that fills up between planning and persisting loses its pairs from the batch, and
+// those mentees are offered their next preferences in another round.
+@Service
+public class AssignmentServiceImplements implements AssignmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentServiceImplements.class);
+    private static final String BATCH = "batch-assign";
+    private static final int MAX_ROUNDS = 3;
+
+    private final UserRepository userRepository;
+    private final MentorshipRepository mentorshipRepository;
+    private final UserServices userServices;
+    private final MatchIndex matchIndex;
+    private final MatchingMetrics matchingMetrics;
+    private final ScoringModel scoringModel;
+    private final int defaultCapacity;
+    private final int preferencesPerMentee;
+    private final ForkJoinPool pool;
+
+    public AssignmentServiceImplements(UserRepository userRepository,
+                                       MentorshipRepository mentorshipRepository,
+                                       UserServices userServices,
+                                       MatchIndex matchIndex,
+                                       MatchingMetrics matchingMetrics,
+                                       ScoringModel scoringModel,
+                                       @Value("${matching.default-mentor-capacity:5}") int defaultCapacity,
+                                       @Value("${matching.batch.preferences-per-mentee:32}") int preferencesPerMentee,
+                                       @Value("${matching.batch.parallelism:4}") int parallelism) {
+        this.userRepository = userRepository;
+        this.mentorshipRepository = mentorshipRepository;
+        this.userServices = userServices;
+        this.matchIndex = matchIndex;
+        this.matchingMetrics = matchingMetrics;
+        this.scoringModel = scoringModel;
+        this.defaultCapacity = defaultCapacity;
+        this.preferencesPerMentee = preferencesPerMentee;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public BatchAssignmentResultDTO assignCohort(List<Long> menteeIds) {
+        long start = System.nanoTime();
+
+        // Remaining slots per mentor, read as a projection rather than loading every mentor
+        Map<Long, Integer> remaining = matchingMetrics.time(BATCH, "candidates", this::remainingSlots);
+        List<Long> requested = menteeIds.stream().distinct().toList();
+        // mentors, unknown ids and mentees that already have a mentor are reported back, not assigned
+        Set<Long> eligible = new HashSet<>(userRepository.findFreeMenteeIdsIn(requested));
+        List<Long> rejected = requested.stream().filter(id -> !eligible.contains(id)).toList();
+        MatchProfile[] mentees = requested.stream()
+                .filter(eligible::contains)
+                .map(matchIndex::profile)
+                .filter(Objects::nonNull)
+                .toArray(MatchProfile[]::new);
+
+        // Mentors with open slots, only from the partitions some mentee in the cohort can reach;
+        // each mentee is scored against its own partitions, not against every mentor
+        Map<MatchPartition, MatchColumns> mentorsByPartition = new HashMap<>();
+        long pairsScored = 0;
+        for (MatchProfile mentee : mentees) {
+            for (MatchPartition partition : mentee.getReach()) {
+                pairsScored += mentorsByPartition.computeIfAbsent(partition, p -> MatchColumns.of(
+                        matchIndex.profiles("mentor", p).stream()
+                                .filter(profile -> remaining.containsKey(profile.getUserId()))
+                                .toList())).size();
+            }
+        }
+        int mentorCount = mentorsByPartition.values().stream().mapToInt(MatchColumns::size).sum();
+        matchingMetrics.candidatesExamined(BATCH, pairsScored);
+
+        // pairs that already exist would only take a slot that addMentees then leaves unused
+        Set<MentorshipId> linked = new HashSet<>(mentorshipRepository.findExistingForMentees(
+                Arrays.stream(mentees).map(MatchProfile::getUserId).toList()));
+        TopKHeap.Entry[][] preferences = matchingMetrics.time(BATCH, "scoring",
+                () -> scorePreferences(mentees, mentorsByPartition, linked));
+        List<AssignmentDTO> persisted = assignInRounds(mentees, preferences, remaining);
+
+        Set<Long> assigned = new HashSet<>();
+        persisted.forEach(assignment -> assigned.add(assignment.getMenteeId()));
+        List<Long> unassigned = requested.stream()
+                .filter(id -> eligible.contains(id) && !assigned.contains(id))
+                .toList();
+
+        long elapsedNanos = System.nanoTime() - start;
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+
+        BatchAssignmentResultDTO result = new BatchAssignmentResultDTO();
+        result.setAssignments(persisted);
+        result.setUnassignedMenteeIds(unassigned);
+        result.setRejectedIds(rejected);
+        result.setPairsScored(pairsScored);
+        result.setElapsedMillis(elapsedNanos / 1_000_000);
+        result.setPairsScoredPerSecond(pairsScored / seconds);
+        result.setAssignmentsPerSecond(persisted.size() / seconds);
+        logger.info("Assigned {} of {} mentees to {} mentors in {} ms ({} pairs/s)",
+                persisted.size(), menteeIds.size(), mentorCount, result.getElapsedMillis(),
+                Math.round(result.getPairsScoredPerSecond()));
+        return result;
+    }
+
+    // Plans greedily and persists, then gives the mentees whose mentor filled up in between another
+    // round from their next preference against freshly read capacities
+    private List<AssignmentDTO> assignInRounds(MatchProfile[] mentees, TopKHeap.Entry[][] preferences,
+                                               Map<Long, Integer> remaining) {
+        Map<Long, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < mentees.length; i++) {
+            indexOf.put(mentees[i].getUserId(), i);
+        }
+        int[] nextRank = new int[mentees.length];
+        List<Integer> pending = IntStream.range(0, mentees.length).boxed().toList();
+        List<AssignmentDTO> persisted = new ArrayList<>();
+        for (int round = 0; round < MAX_ROUNDS && !pending.isEmpty(); round++) {
+            Map<Long, Integer> slots = round == 0 ? remaining : remainingSlots();
+            List<Integer> offered = pending;
+            List<AssignmentDTO> planned = matchingMetrics.time(BATCH, "selection",
+                    () -> assignGreedily(mentees, preferences, offered, nextRank, slots));
+            if (planned.isEmpty()) {
+                break;
+            }
+            List<AssignmentDTO> added = matchingMetrics.time(BATCH, "persist", () -> userServices.addMentees(planned));
+            persisted.addAll(added);
+
+            Set<Long> addedMentees = new HashSet<>();
+            added.forEach(assignment -> addedMentees.add(assignment.getMenteeId()));
+            List<Long> dropped = planned.stream()
+                    .map(AssignmentDTO::getMenteeId)
+                    .filter(id -> !addedMentees.contains(id))
+                    .toList();
+            if (dropped.isEmpty()) {
+                break;
+            }
+            // someone else may have assigned them meanwhile
+            pending = userRepository.findFreeMenteeIdsIn(dropped).stream().map(indexOf::get).toList();
+            logger.debug("Batch round {}: {} pairs dropped by mentors that filled up, {} mentees offered again",
+                    round, dropped.size(), pending.size());
+        }
+        return persisted;
+    }
+
+    private Map<Long, Integer> remainingSlots() {
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (MentorCapacity mentor : userRepository.findMentorCapacities()) {
+            int capacity = mentor.getCapacity() == null ? defaultCapacity : mentor.getCapacity();
+            if (capacity > mentor.getMenteeCount()) {
+                remaining.put(mentor.getId(), capacity - mentor.getMenteeCount());
+            }
+        }
+        return remaining;
+    }
+
+    // Best `preferencesPerMentee` mentors for every mentee, in rank order, computed in parallel
+    private TopKHeap.Entry[][] scorePreferences(MatchProfile[] mentees,
+                                                Map<MatchPartition, MatchColumns> mentorsByPartition,
+                                                Set<MentorshipId> linked) {
+        TopKHeap.Entry[][] preferences = new TopKHeap.Entry[mentees.length][];
+        try {
+            pool.submit(() -> IntStream.range(0, mentees.length).parallel().forEach(i -> {
+                TopKHeap heap = new TopKHeap(preferencesPerMentee);
+                for (MatchPartition partition : mentees[i].getReach()) {
+                    MatchColumns mentors = mentorsByPartition.get(partition);
+                    int[] scores = scoringModel.scoreAll(mentees[i], mentors);
+                    for (int row = 0; row < scores.length; row++) {
+                        long mentorId = mentors.userId(row);
+                        if (scores[row] > 0 && mentorId != mentees[i].getUserId()
+                                && (linked.isEmpty() || !linked.contains(new MentorshipId(mentorId, mentees[i].getUserId())))) {
+                            heap.offer(scores[row], mentorId);
+                        }
+                    }
+                }
+                preferences[i] = heap.drain();
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch assignment was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch assignment scoring failed", e.getCause());
+        }
+        return preferences;
+    }
+
+    // Global greedy by score: always grant the best outstanding proposal, and when its mentor
+    // is already full move that mentee on to its next preference. Each pending mentee starts at
+    // nextRank, which is left just past the mentor it was granted.
+    private List<AssignmentDTO> assignGreedily(MatchProfile[] mentees, TopKHeap.Entry[][] preferences,
+                                               List<Integer> pending, int[] nextRank, Map<Long, Integer> remaining) {
+        PriorityQueue<Proposal> proposals = new PriorityQueue<>();
+        for (int i : pending) {
+            offer(proposals, preferences, i, nextRank[i]);
+        }
+
+        List<AssignmentDTO> assignments = new ArrayList<>();
+        while (!proposals.isEmpty()) {
+            Proposal proposal = proposals.poll();
+            long mentorId = proposal.choice().id();
+            int slots = remaining.getOrDefault(mentorId, 0);
+            if (slots > 0) {
+                remaining.put(mentorId, slots - 1);
+                nextRank[proposal.mentee()] = proposal.rank() + 1;
+                assignments.add(new AssignmentDTO(mentorId, mentees[proposal.mentee()].getUserId(),
+                        proposal.choice().score()));
+            } else {
+                offer(proposals, preferences, proposal.mentee(), proposal.rank() + 1);
+            }
+        }
+        return assignments;
+    }
+
+    private static void offer(PriorityQueue<Proposal> proposals, TopKHeap.Entry[][] preferences, int mentee, int rank) {
+        if (rank < preferences[mentee].length) {
+            proposals.add(new Proposal(mentee, rank, preferences[mentee][rank]));
+        }
+    }
+
+    private record Proposal(int mentee, int rank, TopKHeap.Entry choice) implements Comparable<Proposal> {
+        @Override
+        public int compareTo(Proposal other) {
+            if (choice.score() != other.choice.score()) {
+                return Integer.compare(other.choice.score(), choice.score());
+            }
+            return Integer.compare(mentee, other.mentee);
+        }
+    }
+}
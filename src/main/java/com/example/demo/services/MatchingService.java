@@ -1,8 +1,15 @@
 package com.example.demo.services;
 
+import com.example.demo.dto.MatchPageDTO;
+import com.example.demo.dto.SimilarMentorDTO;
 import com.example.demo.models.User;
 import java.util.List;
+import java.util.Optional;
 
 public interface MatchingService {
     List<User> matchMentees(Long mentorId);
+
+    Optional<MatchPageDTO> topMatches(Long menteeId, int k, String cursor);
+
+    Optional<List<SimilarMentorDTO>> similarMentors(Long userId, int k);
 }
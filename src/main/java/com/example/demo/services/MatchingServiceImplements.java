@@ -1,37 +1,185 @@
 package com.example.demo.services;
 
+import com.example.demo.cache.UserCache;
+import com.example.demo.dto.MatchDTO;
+import com.example.demo.dto.MatchPageDTO;
+import com.example.demo.dto.SimilarMentorDTO;
+import com.example.demo.dto.UserSummary;
+import com.example.demo.matching.MatchCursor;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchIndex.Attribute;
+import com.example.demo.matching.MatchProfile;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.matching.TopKHeap;
+import com.example.demo.metrics.MatchingMetrics;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.demo.models.User;
 import com.example.demo.repository.UserRepository;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class MatchingServiceImplements implements MatchingService {
 
+    private static final String MATCH_MENTEES = "match-mentees";
+    private static final String TOP_MATCHES = "top-matches";
+    private static final String SIMILAR_MENTORS = "similar-mentors";
+
     private final UserRepository userRepository;
+    private final MatchIndex matchIndex;
+    private final UserCache userCache;
+    private final MatchResultCache matchResultCache;
+    private final MatchingMetrics matchingMetrics;
+    private final SimilarityIndex similarityIndex;
 
     @Override
     public List<User> matchMentees(Long mentorId) {
-        Optional<User> mentorOpt = userRepository.findById(mentorId);
+        Optional<User> mentorOpt = userCache.getById(mentorId, () -> userRepository.findById(mentorId));
         if (mentorOpt.isPresent()) {
             User mentor = mentorOpt.get();
 
-            return userRepository.findAll().stream()
-                    .filter(mentee -> matches(mentor, mentee))
-                    .collect(Collectors.toList());
+            // Match based on availability, meeting type and coding languages, resolved from the index
+            Set<Long> menteeIds = matchingMetrics.time(MATCH_MENTEES, "candidates", () ->
+                    matchIndex.candidates("mentee", mentor, Map.of(
+                            Attribute.AVAILABILITY, mentor.getAvailability(),
+                            Attribute.CODING_LANGUAGE, mentor.getCodingLanguage())));
+            matchingMetrics.candidatesExamined(MATCH_MENTEES, menteeIds.size());
+
+            return menteeIds.isEmpty() ? List.of()
+                    : matchingMetrics.time(MATCH_MENTEES, "load", () -> userRepository.findAllById(menteeIds));
         }
         return List.of();
     }
 
-    private boolean matches(User mentor, User mentee) {
-        // Match based on availability, meeting type, coding languages, etc.
-        return mentor.getAvailability().stream().anyMatch(mentee.getAvailability()::contains) &&
-                mentor.getMeetingType().equals(mentee.getMeetingType()) &&
-                !mentor.getCodingLanguage().stream().noneMatch(mentee.getCodingLanguage()::contains);
+    // Read-only transaction so the mentors' lazy collections load even when called off the
+    // request thread (the async endpoint runs this on the match executor, outside open-in-view)
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<MatchPageDTO> topMatches(Long menteeId, int k, String cursor) {
+        Optional<User> menteeOpt = userCache.getById(menteeId, () -> userRepository.findById(menteeId));
+        if (menteeOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        User mentee = menteeOpt.get();
+        MatchCursor after = cursor == null || cursor.isBlank() ? null : MatchCursor.decode(cursor);
+
+        // Serve the page from the precomputed list when it covers it, otherwise rank with a k-sized heap.
+        // Either way at most k + 1 entries come back (the extra one only signals another page),
+        // and only the k winners are loaded from the database.
+        TopKHeap.Entry[] window = matchingMetrics.time(TOP_MATCHES, "selection", () -> {
+            TopKHeap.Entry[] precomputed = pageFromPrecomputed(menteeId, after, k);
+            if (precomputed != null) {
+                matchingMetrics.candidatesExamined(TOP_MATCHES, precomputed.length);
+                return precomputed;
+            }
+            MatchProfile menteeProfile = matchIndex.profileOf(mentee);
+            matchingMetrics.candidatesExamined(TOP_MATCHES, matchIndex.countReachable("mentor", menteeProfile));
+            return matchResultCache.scan(menteeProfile, after, k + 1);
+        });
+        boolean hasMore = window.length > k;
+        TopKHeap.Entry[] ranked = Arrays.copyOf(window, Math.min(k, window.length));
+
+        List<MatchDTO> matches = matchingMetrics.time(TOP_MATCHES, "load", () -> {
+            Map<Long, User> mentors = userRepository.findAllById(
+                            Arrays.stream(ranked).map(TopKHeap.Entry::id).toList()).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            List<MatchDTO> page = new ArrayList<>(ranked.length);
+            for (TopKHeap.Entry entry : ranked) {
+                User mentor = mentors.get(entry.id());
+                if (mentor != null) {
+                    page.add(toMatchDTO(mentee, mentor, entry.score()));
+                }
+            }
+            return page;
+        });
+
+        String nextCursor = hasMore && ranked.length > 0
+                ? new MatchCursor(ranked[ranked.length - 1].score(), ranked[ranked.length - 1].id()).encode()
+                : null;
+        return Optional.of(new MatchPageDTO(matches, nextCursor));
+    }
+
+    // Mentors whose profile text reads most like this user's, by cosine similarity of the embeddings.
+    // Works for mentees and mentors alike; a mentor never comes back as similar to themself.
+    @Override
+    public Optional<List<SimilarMentorDTO>> similarMentors(Long userId, int k) {
+        Optional<User> userOpt = userCache.getById(userId, () -> userRepository.findById(userId));
+        if (userOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        User user = userOpt.get();
+        TopKHeap.Entry[] ranked = matchingMetrics.time(SIMILAR_MENTORS, "selection", () -> similarityIndex.similar(user, k));
+        if (ranked.length == 0) {
+            return Optional.of(List.of());
+        }
+
+        return Optional.of(matchingMetrics.time(SIMILAR_MENTORS, "load", () -> {
+            Map<Long, UserSummary> mentors = userRepository.findSummariesByIdIn(
+                            Arrays.stream(ranked).map(TopKHeap.Entry::id).toList()).stream()
+                    .collect(Collectors.toMap(UserSummary::id, Function.identity()));
+            List<SimilarMentorDTO> similar = new ArrayList<>(ranked.length);
+            for (TopKHeap.Entry entry : ranked) {
+                UserSummary mentor = mentors.get(entry.id());
+                if (mentor != null) {
+                    similar.add(new SimilarMentorDTO(mentor, SimilarityIndex.similarity(entry.score())));
+                }
+            }
+            return similar;
+        }));
+    }
+
+    // Up to k + 1 entries after the cursor (the extra one only signals another page),
+    // or null when the precomputed list is too short to answer for certain
+    private TopKHeap.Entry[] pageFromPrecomputed(Long menteeId, MatchCursor after, int k) {
+        TopKHeap.Entry[] list = matchResultCache.topMatches(menteeId);
+        if (list == null) {
+            return null;
+        }
+        int start = 0;
+        if (after != null) {
+            while (start < list.length && !after.admits(list[start].score(), list[start].id())) {
+                start++;
+            }
+        }
+        boolean complete = list.length < matchResultCache.getTopN();
+        if (!complete && start + k + 1 > list.length) {
+            return null;
+        }
+        return Arrays.copyOfRange(list, start, Math.min(list.length, start + k + 1));
+    }
+
+    private MatchDTO toMatchDTO(User mentee, User mentor, int score) {
+        MatchDTO match = new MatchDTO();
+        match.setMentorId(mentor.getId());
+        match.setMenteeId(mentee.getId());
+        match.setMentorName(mentor.getName());
+        match.setMenteeName(mentee.getName());
+        match.setScore(score);
+        match.setCommonAvailability(common(mentor.getAvailability(), mentee.getAvailability()));
+        match.setMeetingType(mentor.getMeetingType());
+        match.setCommonCodingLanguage(common(mentor.getCodingLanguage(), mentee.getCodingLanguage()));
+        match.setInterests(mentor.getInterests() == null ? null : String.join(", ", mentor.getInterests()));
+        match.setLocation(mentor.getLocation());
+        match.setCertifications(mentor.getCertifications());
+        return match;
+    }
+
+    private static List<String> common(List<String> mentorValues, List<String> menteeValues) {
+        if (mentorValues == null || menteeValues == null) {
+            return List.of();
+        }
+        Set<String> menteeSet = menteeValues.stream()
+                .filter(Objects::nonNull)
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        return mentorValues.stream()
+                .filter(value -> value != null && menteeSet.contains(value.trim().toLowerCase(Locale.ROOT)))
+                .toList();
     }
 }
@@ -0,0 +1,21 @@
+package com.example.demo.services;
+
+import java.io.Serial;
+
+// The mentor's mentee count is already at their capacity, so no mentee can be added
+public class MentorFullException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Long mentorId;
+
+    public MentorFullException(Long mentorId) {
+        super("Mentor " + mentorId + " has no open slots");
+        this.mentorId = mentorId;
+    }
+
+    public Long getMentorId() {
+        return mentorId;
+    }
+}
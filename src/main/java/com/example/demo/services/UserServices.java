@@ -1,40 +1,69 @@
 package com.example.demo.services;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
+import com.example.demo.dto.AssignmentDTO;
+import com.example.demo.dto.BulkImportResultDTO;
 import com.example.demo.dto.EditUserDTO;
+import com.example.demo.dto.MentorshipDTO;
+import com.example.demo.dto.PatchUserDTO;
+import com.example.demo.dto.UserSummary;
 import com.example.demo.models.User;
+import org.springframework.data.domain.Slice;
 
 public interface UserServices {
-    List<User> getAllUsers();
+    List<UserSummary> getAllUsers();
 
     Optional<User> getUserById(Long id);
 
     void deleteUserById(Long id);
 
+    // Throws DataIntegrityViolationException when the email is already registered
     Optional<User> saveUser(User newUser);
 
     Optional<User> findByEmail(String email);
 
+    BulkImportResultDTO importUsers(InputStream ndjson) throws IOException;
+
+    void exportUsers(OutputStream out) throws IOException;
+
     Optional<User> loginUser(String email, String password);
 
     Optional<User> addMentee(Long mentorId, Long menteeId);
 
+    // Returns the assignments actually added. Left out are pairs that already exist or name an unknown
+    // user, and those beyond the slots their mentor had left, later ones in the list first
+    List<AssignmentDTO> addMentees(List<AssignmentDTO> assignments);
+
     Optional<User> removeMentee(Long mentorId, Long menteeId);
 
-    List<User> getAllMentees(Long mentorId);
+    List<UserSummary> getAllMentees(Long mentorId);
 
-    List<User> getAllMentors(Long menteeId);
+    List<UserSummary> getAllMentors(Long menteeId);
+
+    Optional<MentorshipDTO> getMentorship(Long mentorId);
 
 
     List<User> getAllFreeMentors();
 
     List<User> getAllFreeMentees();
 
+    Slice<UserSummary> getFreeMentors(long afterId, int size);
+
+    Slice<UserSummary> getFreeMentees(long afterId, int size);
+
     Optional<User> editUserProfile(Long userId, EditUserDTO newDetails);
+
+    Optional<User> patchUserProfile(Long userId, PatchUserDTO patch);
+
     User matchMenteeWithMentor(User mentee, List<User> mentors);
 
+    Optional<UserSummary> matchMentor(Long menteeId);
+
     int calculateMatchScore(User mentee, User mentor);
 
 }
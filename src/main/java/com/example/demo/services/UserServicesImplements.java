@@ -1,169 +1,479 @@
 package com.example.demo.services;
 
+import com.example.demo.cache.UserCache;
+import com.example.demo.dto.AssignmentDTO;
+import com.example.demo.dto.BulkImportResultDTO;
 import com.example.demo.dto.EditUserDTO;
+import com.example.demo.dto.MentorshipDTO;
+import com.example.demo.dto.PatchUserDTO;
+import com.example.demo.dto.PatchUserDTO.ValuesDelta;
+import com.example.demo.dto.UserSummary;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchIndex.Attribute;
+import com.example.demo.matching.MatchProfile;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.matching.TopKHeap;
+import com.example.demo.metrics.MatchingMetrics;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.demo.models.Mentorship;
+import com.example.demo.models.MentorshipId;
 import com.example.demo.models.User;
+import com.example.demo.repository.MentorshipRepository;
+import com.example.demo.repository.UserBatchWriter;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PasswordHasher;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServicesImplements implements UserServices {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserServicesImplements.class);
+
+    private static final String MATCH_MENTORS = "match-mentors";
+    private static final String MATCH_MENTOR = "match-mentor";
+    private static final String PICK_MENTOR = "pick-mentor";
+
+    private static final int MAX_ATTEMPTS = 3;
+
     private final UserRepository userRepository;
+    private final MentorshipRepository mentorshipRepository;
+    private final MatchIndex matchIndex;
+    private final UserCache userCache;
+    private final MatchResultCache matchResultCache;
+    private final UserBatchWriter userBatchWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final PasswordHasher passwordHasher;
+    private final ThreadPoolTaskExecutor passwordExecutor;
+    private final MatchingMetrics matchingMetrics;
+    private final ScoringModel scoringModel;
+    private final SimilarityIndex similarityIndex;
+    private final EntityManager entityManager;
+
+    @Value("${matching.default-mentor-capacity:5}")
+    private int defaultCapacity;
+
+    @Value("${user.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${user.bulk.max-reported-duplicates:100}")
+    private int maxReportedDuplicates;
+
+    @Value("${user.export.page-size:1000}")
+    private int exportPageSize;
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<UserSummary> getAllUsers() {
+        return userRepository.findAllSummaries();
     }
 
     @Override
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, () -> userRepository.findById(id));
     }
 
     @Override
+    @Transactional
     public void deleteUserById(Long id) {
+        // counterparts' mentee/mentor counts change too, so their cached profiles go as well
+        List<Long> affected = new ArrayList<>(mentorshipRepository.findCounterpartIds(id));
+        affected.add(id);
+        userRepository.releaseMenteesOf(id);
+        userRepository.releaseMentorsOf(id);
+        mentorshipRepository.deleteAllForUser(id);
         userRepository.deleteById(id);
+        matchIndex.remove(id);
+        similarityIndex.remove(id);
+        userCache.evictAfterCommit(affected);
+        matchResultCache.userRemoved(id);
+        matchResultCache.capacityChanged(affected);
     }
 
     @Override
     public Optional<User> saveUser(User newUser) {
-        return Optional.of(userRepository.save(newUser));
+        String rawPassword = newUser.getPassword();
+        if (rawPassword != null) {
+            newUser.setPassword(onPasswordExecutor(() -> passwordHasher.hash(rawPassword)));
+        }
+        User savedUser = userRepository.save(newUser);
+        matchIndex.index(savedUser);
+        similarityIndex.index(savedUser);
+        matchResultCache.userChanged(savedUser.getId(), savedUser.getRole());
+        userCache.evictAfterCommit(savedUser.getId());
+        userCache.evictEmail(savedUser.getEmail());
+        return Optional.of(savedUser);
     }
 
     @Override
     public Optional<User> findByEmail(String email) {
-        return userRepository.findByEmail(email);
+        String normalized = User.normalizeEmail(email);
+        return userCache.getByEmail(normalized, () -> userRepository.findByEmail(normalized));
+    }
+
+    // Reads one user per line and imports them in chunks: each chunk costs one IN query against the
+    // email column to drop duplicates, then batched inserts, in its own transaction. Only the current
+    // chunk is held in memory. A malformed line stops the upload; everything before it is imported.
+    @Override
+    public BulkImportResultDTO importUsers(InputStream ndjson) throws IOException {
+        long started = System.nanoTime();
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        List<User> chunk = new ArrayList<>(bulkChunkSize);
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(ndjson)) {
+            while (users.hasNextValue()) {
+                User user = users.nextValue();
+                if (user.getEmail() == null || user.getEmail().isBlank()) {
+                    result.setInvalid(result.getInvalid() + 1);
+                    continue;
+                }
+                user.normalize();
+                chunk.add(user);
+                if (chunk.size() == bulkChunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            JsonLocation location = e.getLocation();
+            result.setError("Malformed user" + (location == null ? "" : " at line " + location.getLineNr())
+                    + ": " + e.getOriginalMessage());
+        }
+        importChunk(chunk, result);
+        result.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        logger.info("Bulk import: {} imported, {} duplicates, {} invalid in {} ms", result.getImported(),
+                result.getDuplicates(), result.getInvalid(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void importChunk(List<User> chunk, BulkImportResultDTO result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        hashPasswords(chunk);
+        List<String> duplicates;
+        try {
+            duplicates = insertChunk(chunk);
+        } catch (DataIntegrityViolationException e) {
+            // an email was registered concurrently between the IN query and the insert; the chunk
+            // rolled back, and the retry's IN query sees the conflicting row
+            logger.info("Bulk import chunk hit a concurrent registration, retrying");
+            duplicates = insertChunk(chunk);
+        }
+        result.setImported(result.getImported() + chunk.size() - duplicates.size());
+        result.setDuplicates(result.getDuplicates() + duplicates.size());
+        for (String email : duplicates) {
+            if (result.getDuplicateEmails().size() == maxReportedDuplicates) {
+                break;
+            }
+            result.getDuplicateEmails().add(email);
+        }
+    }
+
+    // Inserts the chunk's users whose email is still free and returns the emails that were not
+    private List<String> insertChunk(List<User> chunk) {
+        return transactionTemplate.execute(status -> {
+            Set<String> taken = new HashSet<>(userRepository.findExistingEmails(
+                    chunk.stream().map(User::getEmail).toList()));
+            List<User> fresh = new ArrayList<>(chunk.size());
+            List<String> duplicates = new ArrayList<>();
+            for (User user : chunk) {
+                if (taken.add(user.getEmail())) {
+                    fresh.add(user);
+                } else {
+                    duplicates.add(user.getEmail());
+                }
+            }
+            userBatchWriter.insert(fresh);
+            for (User user : fresh) {
+                matchIndex.index(user);
+                similarityIndex.index(user);
+                matchResultCache.userChanged(user.getId(), user.getRole());
+                userCache.evictEmail(user.getEmail());
+            }
+            return duplicates;
+        });
+    }
+
+    // Writes every user summary as one JSON line, a keyset page at a time, so memory stays
+    // constant no matter how many users there are
+    @Override
+    public void exportUsers(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(UserSummary.class);
+        long afterId = 0;
+        Slice<UserSummary> page;
+        do {
+            page = userRepository.findAllSummariesAfter(afterId, PageRequest.of(0, exportPageSize));
+            for (UserSummary user : page) {
+                out.write(writer.writeValueAsBytes(user));
+                out.write('\n');
+                afterId = user.id();
+            }
+            out.flush();
+        } while (page.hasNext());
     }
 
     @Override
     public Optional<User> loginUser(String email, String password) {
-        Optional<User> user = userRepository.findByEmail(email);
+        Optional<User> user = findByEmail(email);
+        if (user.isEmpty()) {
+            return Optional.empty();
+        }
+        User foundUser = user.get();
+        String stored = foundUser.getPassword();
+
+        // Verify, and compute the upgraded hash when the stored one is plain text or too weak,
+        // on the bounded password executor; the (virtual) request thread only waits
+        String current = onPasswordExecutor(() -> {
+            if (!passwordHasher.matches(password, stored)) {
+                return null;
+            }
+            return passwordHasher.needsRehash(stored) ? passwordHasher.hash(password) : stored;
+        });
+        if (current == null) {
+            return Optional.empty();
+        }
+        if (!current.equals(stored)) {
+            userRepository.updatePassword(foundUser.getId(), stored, current);
+            userCache.evict(foundUser.getId());
+            logger.info("Upgraded password hash for user {}", foundUser.getId());
+        }
+        return Optional.of(foundUser);
+    }
+
+    private <T> T onPasswordExecutor(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, passwordExecutor).join();
+    }
 
-        if (user.isPresent()) {
-            User foundUser = user.get();
-            if (foundUser.getPassword().equals(password)) {
-                return Optional.of(foundUser);
+    // Hashes a bulk chunk in parallel on the password executor, running the overflow on the
+    // calling thread instead of rejecting it
+    private void hashPasswords(List<User> users) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(users.size());
+        for (User user : users) {
+            if (user.getPassword() == null) {
+                continue;
+            }
+            Runnable hash = () -> user.setPassword(passwordHasher.hash(user.getPassword()));
+            try {
+                pending.add(CompletableFuture.runAsync(hash, passwordExecutor));
+            } catch (RejectedExecutionException e) {
+                hash.run();
             }
         }
-        return Optional.empty();
+        pending.forEach(CompletableFuture::join);
     }
 
+    // No entity is read and written back: the pair is one INSERT IGNORE and the mentor's slot one
+    // conditional UPDATE, so concurrent assignments only wait on the rows they touch and can neither
+    // lose a count, overfill a mentor nor leave half a pair. Throws MentorFullException when the
+    // mentor has no open slot left.
+    // Both users' rows are write-locked up front, lowest id first, as removeMentee does: requests for
+    // the same mentor queue on that lock instead of deadlocking on the counter UPDATEs, and neither
+    // user can be deleted before the pair commits (mentorship has no foreign key that would notice).
     @Override
     public Optional<User> addMentee(Long mentorId, Long menteeId) {
-        Optional<User> mentor = userRepository.findById(mentorId);
-        Optional<User> mentee = userRepository.findById(menteeId);
-
-        if (mentor.isPresent() && mentee.isPresent()) {
-            User mentorUser = mentor.get();
-            User menteeUser = mentee.get();
-            if (!mentorUser.getMentees().contains(menteeId) && !menteeUser.getMentors().contains(mentorId)) {
-                mentorUser.getMentees().add(menteeId);
-                menteeUser.getMentors().add(mentorId);
+        return retryOnConflict(() -> transactionTemplate.execute(status -> {
+            if (mentorId.equals(menteeId) || userRepository.lockExistingIds(List.of(mentorId, menteeId)).size() != 2) {
+                return Optional.<User>empty();
+            }
+            if (mentorshipRepository.insertIfAbsent(mentorId, menteeId) == 0) {
+                logger.info("Mentor {} and mentee {} are already assigned", mentorId, menteeId);
             } else {
-                System.out.println("Mentor and mentee are already assigned");
+                if (userRepository.claimMentorSlots(mentorId, 1, defaultCapacity) == 0) {
+                    throw new MentorFullException(mentorId); // rolls the pair back
+                }
+                userRepository.adjustMentorCount(menteeId, 1);
+                userCache.evictAfterCommit(mentorId, menteeId);
+                matchResultCache.capacityChanged(List.of(mentorId));
             }
-            userRepository.save(mentorUser);
-            userRepository.save(menteeUser);
+            return userRepository.findById(mentorId);
+        }));
+    }
 
-            return mentor;
+    @Override
+    @Transactional
+    public List<AssignmentDTO> addMentees(List<AssignmentDTO> assignments) {
+        // One query for the users involved and one for links that already exist, then batched inserts
+        Set<Long> mentorIds = new HashSet<>();
+        Set<Long> menteeIds = new HashSet<>();
+        for (AssignmentDTO assignment : assignments) {
+            mentorIds.add(assignment.getMentorId());
+            menteeIds.add(assignment.getMenteeId());
         }
-        return Optional.empty();
+        Set<Long> ids = new HashSet<>(mentorIds);
+        ids.addAll(menteeIds);
+        Set<Long> existingUsers = new HashSet<>(userRepository.findExistingIds(ids));
+        Set<MentorshipId> existingLinks = new HashSet<>(mentorshipRepository.findExisting(mentorIds, menteeIds));
+
+        List<AssignmentDTO> fresh = new ArrayList<>();
+        Map<Long, Integer> menteeDeltas = new HashMap<>();
+        for (AssignmentDTO assignment : assignments) {
+            MentorshipId id = new MentorshipId(assignment.getMentorId(), assignment.getMenteeId());
+            if (existingUsers.contains(id.getMentorId()) && existingUsers.contains(id.getMenteeId())
+                    && existingLinks.add(id)) {
+                fresh.add(assignment);
+                menteeDeltas.merge(id.getMentorId(), 1, Integer::sum);
+            }
+        }
+        // Claim each mentor's slots before inserting anything, mentors in id order so concurrent batches lock
+        // them in the same order. A mentor that filled up since the batch was planned gets as many of its
+        // pairs as it still has room for, earliest in the batch first; the rest are left out of the result.
+        Map<Long, Integer> claimed = new TreeMap<>(menteeDeltas);
+        claimed.replaceAll(this::claimUpTo);
+        claimed.values().removeIf(slots -> slots == 0);
+
+        List<AssignmentDTO> added = new ArrayList<>();
+        List<Mentorship> links = new ArrayList<>();
+        Map<Long, Integer> mentorDeltas = new HashMap<>();
+        Map<Long, Integer> used = new HashMap<>();
+        for (AssignmentDTO assignment : fresh) {
+            int slots = claimed.getOrDefault(assignment.getMentorId(), 0);
+            if (used.merge(assignment.getMentorId(), 1, Integer::sum) <= slots) {
+                links.add(new Mentorship(assignment.getMentorId(), assignment.getMenteeId()));
+                mentorDeltas.merge(assignment.getMenteeId(), 1, Integer::sum);
+                added.add(assignment);
+            }
+        }
+        if (added.size() < fresh.size()) {
+            logger.info("{} of {} new assignments dropped, their mentors filled up", fresh.size() - added.size(),
+                    fresh.size());
+        }
+        mentorshipRepository.saveAll(links);
+        mentorDeltas.forEach(userRepository::adjustMentorCount);
+        Set<Long> touched = new HashSet<>(claimed.keySet());
+        touched.addAll(mentorDeltas.keySet());
+        userCache.evictAfterCommit(touched);
+        matchResultCache.capacityChanged(claimed.keySet());
+        return added;
+    }
+
+    // Claims `wanted` of the mentor's slots, or as many as are left; returns how many it got. Each failed
+    // claim means the mentor has fewer than that many open, so the next try asks for fewer.
+    private int claimUpTo(Long mentorId, int wanted) {
+        int slots = wanted;
+        while (slots > 0 && userRepository.claimMentorSlots(mentorId, slots, defaultCapacity) == 0) {
+            Integer open = userRepository.findOpenSlots(mentorId, defaultCapacity);
+            slots = Math.min(slots - 1, open == null ? 0 : open);
+        }
+        return Math.max(slots, 0);
     }
 
     @Override
     public Optional<User> removeMentee(Long mentorId, Long menteeId) {
-        Optional<User> mentor = userRepository.findById(mentorId);
-        Optional<User> mentee = userRepository.findById(menteeId);
-
-        if (mentor.isPresent() && mentee.isPresent()) {
-            mentor.get().getMentees().remove(menteeId);
-            mentee.get().getMentors().remove(mentorId);
-            userRepository.save(mentor.get());
-            userRepository.save(mentee.get());
+        return retryOnConflict(() -> transactionTemplate.execute(status -> {
+            if (!userRepository.lockExistingIds(List.of(mentorId, menteeId)).contains(menteeId)) {
+                return Optional.<User>empty();
+            }
+            // Single-row delete; counters only move if this call actually removed the link
+            if (mentorshipRepository.deleteLink(mentorId, menteeId) > 0) {
+                userRepository.adjustMenteeCount(mentorId, -1);
+                userRepository.adjustMentorCount(menteeId, -1);
+                userCache.evictAfterCommit(mentorId, menteeId);
+                matchResultCache.capacityChanged(List.of(mentorId));
+            }
+            return userRepository.findById(mentorId);
+        }));
+    }
 
-            return mentor;
+    // A deadlock or lock timeout rolls the whole attempt back, so it is safe to run it again a few times
+    private <T> T retryOnConflict(Supplier<T> attempt) {
+        for (int attempts = 1; ; attempts++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempts == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Retrying after concurrent update, attempt {}", attempts, e);
+            }
         }
-        return Optional.empty();
     }
 
     @Override
-    public List<User> getAllMentees(Long mentorId) {
-        Optional<User> mentor = userRepository.findById(mentorId);
-        if (mentor.isPresent()) {
-            List<Long> menteeIds = mentor.get().getMentees();
-            return menteeIds.stream()
-                    .map(userRepository::findById)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toList());
-        }
-        return List.of();
+    public List<UserSummary> getAllMentees(Long mentorId) {
+        return userRepository.findMenteeSummaries(mentorId);
     }
 
     @Override
-    public List<User> getAllMentors(Long menteeId) {
-        Optional<User> mentee = userRepository.findById(menteeId);
-        if (mentee.isPresent()) {
-            List<Long> mentorIds = mentee.get().getMentors();
-            return mentorIds.stream()
-                    .map(userRepository::findById)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .collect(Collectors.toList());
-        }
-        return List.of();
+    public List<UserSummary> getAllMentors(Long menteeId) {
+        return userRepository.findMentorSummaries(menteeId);
+    }
+
+    @Override
+    public Optional<MentorshipDTO> getMentorship(Long mentorId) {
+        return userRepository.findSummaryById(mentorId)
+                .map(mentor -> new MentorshipDTO(mentor, userRepository.findMenteeSummaries(mentorId)));
     }
 
     public List<User> matchMentees(Long menteeId) {
-        Optional<User> mentee = userRepository.findById(menteeId);
+        Optional<User> mentee = getUserById(menteeId);
         if (!mentee.isPresent()) {
             return List.of();
         }
         User menteeUser = mentee.get();
 
-        return userRepository.findAll().stream()
-                .filter(mentor -> !mentor.getId().equals(menteeId) &&
-                        mentor.getAvailability().stream().anyMatch(menteeUser.getAvailability()::contains) &&
-                        mentor.getMeetingType().equals(menteeUser.getMeetingType()) &&
-                        !mentor.getCodingLanguage().stream().noneMatch(menteeUser.getCodingLanguage()::contains) &&
-                        !mentor.getExpertise().stream().noneMatch(menteeUser.getExpertise()::contains))
-                .collect(Collectors.toList());
-    }
+        Set<Long> mentorIds = matchingMetrics.time(MATCH_MENTORS, "candidates", () ->
+                matchIndex.candidates("mentor", menteeUser, Map.of(
+                        Attribute.AVAILABILITY, menteeUser.getAvailability(),
+                        Attribute.CODING_LANGUAGE, menteeUser.getCodingLanguage(),
+                        Attribute.EXPERTISE, menteeUser.getExpertise())));
+        mentorIds.remove(menteeId);
+        matchingMetrics.candidatesExamined(MATCH_MENTORS, mentorIds.size());
 
+        return mentorIds.isEmpty() ? List.of()
+                : matchingMetrics.time(MATCH_MENTORS, "load", () -> userRepository.findAllById(mentorIds));
+    }
 
 
 
-    public List<User> getAllFreeMentors(){
-            List<User> allUsers = userRepository.findAll();
-            List<User> mentors = new ArrayList<>();
-
-            for (User user : allUsers) {
-                if ("mentor".equalsIgnoreCase(user.getRole())) {
-                    mentors.add(user);
-                }
-            }
-
-       return mentors;
 
+    // Mentors with at least one open slot, filtered by the database on the (role, mentee_count) index
+    public List<User> getAllFreeMentors() {
+        return userRepository.findMentorsWithOpenSlots(defaultCapacity);
     }
 
-    public List<User> getAllFreeMentees(){
-        List<User> allUsers = userRepository.findAll();
-        List<User> mentees = new ArrayList<>();
+    public Slice<UserSummary> getFreeMentors(long afterId, int size) {
+        return userRepository.findMentorSummariesWithOpenSlotsAfter(defaultCapacity, afterId, PageRequest.ofSize(size));
+    }
 
-        for (User user : allUsers) {
+    // Mentees that have not been assigned a mentor yet
+    public List<User> getAllFreeMentees() {
+        return userRepository.findMenteesWithoutMentor();
+    }
 
-         if ("mentee".equalsIgnoreCase(user.getRole())) {
-            mentees.add(user);
-        }
-        }
-        return mentees;
+    public Slice<UserSummary> getFreeMentees(long afterId, int size) {
+        return userRepository.findMenteeSummariesWithoutMentorAfter(afterId, PageRequest.ofSize(size));
     }
 
 
@@ -173,72 +483,173 @@ public class UserServicesImplements implements UserServices {
 
         if(foundUser.isPresent()){
             foundUser.get().setLocation(newDetails.getLocation());
+            foundUser.get().setLatitude(newDetails.getLatitude());
+            foundUser.get().setLongitude(newDetails.getLongitude());
             foundUser.get().setMeetingType(newDetails.getMeetingType());
             foundUser.get().setCertifications(newDetails.getCertifications());
             foundUser.get().setPersonalStatement(newDetails.getPersonalStatement());
             foundUser.get().setYearsOfExperience(newDetails.getYearsOfExperience());
 
-            return Optional.of(userRepository.save(foundUser.get()));
+            User savedUser = userRepository.save(foundUser.get());
+            matchIndex.index(savedUser);
+            similarityIndex.index(savedUser);
+            matchResultCache.userChanged(userId, savedUser.getRole());
+            userCache.evictAfterCommit(userId);
+            return Optional.of(savedUser);
         }
 
         return Optional.empty();
 
     }
 
+    // Sparse update: fields missing from the patch keep their value, and since User is @DynamicUpdate
+    // the UPDATE names only the columns that really changed. Element collection values are inserted
+    // and deleted one row at a time instead of Hibernate deleting and re-inserting the whole bag.
+    @Override
+    public Optional<User> patchUserProfile(Long userId, PatchUserDTO patch) {
+        return Optional.ofNullable(transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userId).orElse(null);
+            if (user == null) {
+                return null;
+            }
+            setOrClear(patch.getLocation(), patch.clears("location"), user::setLocation);
+            setOrClear(patch.getLatitude(), patch.clears("latitude"), user::setLatitude);
+            setOrClear(patch.getLongitude(), patch.clears("longitude"), user::setLongitude);
+            setOrClear(patch.getPersonalStatement(), patch.clears("personalStatement"), user::setPersonalStatement);
+            setOrClear(patch.getCertifications(), patch.clears("certifications"), user::setCertifications);
+            setIfPresent(patch.getYearsOfExperience(), user::setYearsOfExperience);
+            setIfPresent(patch.getMeetingType(), user::setMeetingType);
+            // plain list columns are one column each, so they are written whole but only when changed
+            setIfPresent(applied(user.getInterests(), patch.getInterests()), user::setInterests);
+            setIfPresent(applied(user.getSkills(), patch.getSkills()), user::setSkills);
+
+            Map<String, List<String>> added = new HashMap<>();
+            Map<String, List<String>> removed = new HashMap<>();
+            diff(UserBatchWriter.EXPERTISE, user.getExpertise(), patch.getExpertise(), added, removed);
+            diff(UserBatchWriter.CODING_LANGUAGE, user.getCodingLanguage(), patch.getCodingLanguage(), added, removed);
+            diff(UserBatchWriter.AVAILABILITY, user.getAvailability(), patch.getAvailability(), added, removed);
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                user.setUpdatedAt(Instant.now()); // the row still takes the version bump and the change time
+            }
 
-    public User matchMenteeWithMentor(User mentee, List<User> mentors) {
-        // Create a map to store mentors and their matching scores
-        Map<User, Integer> mentorScores = new HashMap<>();
-
-        // Iterate through mentors and calculate scores
-        for (User mentor : mentors) {
-            int score = calculateMatchScore(mentee, mentor);
-            if (score > 0) {
-                mentorScores.put(mentor, score);
+            // the row goes first: its version check fails fast and its lock covers the collection rows
+            userRepository.saveAndFlush(user);
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                removed.forEach((table, values) -> userBatchWriter.removeValues(userId, table, values));
+                added.forEach((table, values) -> userBatchWriter.addValues(userId, table, values));
+                entityManager.refresh(user); // reload the collections the statements above changed
             }
+
+            matchIndex.index(user);
+            similarityIndex.index(user);
+            matchResultCache.userChanged(userId, user.getRole());
+            userCache.evictAfterCommit(userId);
+            return user;
+        }));
+    }
+
+    private static <T> void setIfPresent(T value, Consumer<T> setter) {
+        if (value != null) {
+            setter.accept(value);
         }
+    }
 
-        // If no mentors match, return null
-        if (mentorScores.isEmpty()) {
-            return null;
+    // Sets the value, or null when the patch sent the field as null; a field left out is not touched
+    private static <T> void setOrClear(T value, boolean clear, Consumer<T> setter) {
+        if (value != null || clear) {
+            setter.accept(value);
         }
+    }
 
-        // Find the maximum score
-        int maxScore = Collections.max(mentorScores.values());
+    // The list after the delta, or null when the delta leaves it as it is
+    private static List<String> applied(List<String> current, ValuesDelta delta) {
+        if (delta == null) {
+            return null;
+        }
+        LinkedHashSet<String> values = current == null ? new LinkedHashSet<>() : new LinkedHashSet<>(current);
+        boolean changed = values.removeAll(nullToEmpty(delta.getRemove()));
+        changed |= values.addAll(nullToEmpty(delta.getAdd()));
+        return changed ? new ArrayList<>(values) : null;
+    }
 
-        // Get all mentors with the maximum score
-        List<User> bestMatches = mentorScores.entrySet().stream()
-                .filter(entry -> entry.getValue() == maxScore)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+    // Rows to insert and delete in a collection table; removals go first, so a value named in both stays
+    private static void diff(String table, List<String> current, ValuesDelta delta,
+                             Map<String, List<String>> added, Map<String, List<String>> removed) {
+        if (delta == null) {
+            return;
+        }
+        Set<String> present = current == null ? Set.of() : new HashSet<>(current);
+        Set<String> toAdd = new LinkedHashSet<>(nullToEmpty(delta.getAdd()));
+        Set<String> toRemove = new LinkedHashSet<>(nullToEmpty(delta.getRemove()));
+        toRemove.retainAll(present);
+        toRemove.removeAll(toAdd);
+        toAdd.removeAll(present);
+        if (!toAdd.isEmpty()) {
+            added.put(table, new ArrayList<>(toAdd));
+        }
+        if (!toRemove.isEmpty()) {
+            removed.put(table, new ArrayList<>(toRemove));
+        }
+    }
 
-        // Return a random mentor from the best matches
-        Random random = new Random();
-        return bestMatches.get(random.nextInt(bestMatches.size()));
+    private static List<String> nullToEmpty(List<String> values) {
+        return values == null ? List.of() : values;
     }
 
-    public int calculateMatchScore(User mentee, User mentor) {
-        int score = 0;
 
-        // Check if meeting type matches
-        if (mentor.getMeetingType().equals(mentee.getMeetingType())) {
-            score++;
-        }
+    public User matchMenteeWithMentor(User mentee, List<User> mentors) {
+        MatchProfile menteeProfile = matchIndex.profileOf(mentee);
+        int best = matchingMetrics.time(PICK_MENTOR, "scoring", () ->
+                pickBest(menteeProfile, mentors.size(), i -> matchIndex.profileOf(mentors.get(i))));
+        matchingMetrics.candidatesExamined(PICK_MENTOR, mentors.size());
 
-        // Check for matching availability
-        List<String> commonAvailability = new ArrayList<>(mentee.getAvailability());
-        commonAvailability.retainAll(mentor.getAvailability());
-        if (!commonAvailability.isEmpty()) {
-            score++;
-        }
+        // null if no mentors match
+        return best < 0 ? null : mentors.get(best);
+    }
+
+    // Best precomputed match, picked uniformly at random among the top-scoring ties
+    public Optional<UserSummary> matchMentor(Long menteeId) {
+        Long winner = matchingMetrics.time(MATCH_MENTOR, "selection", () -> {
+            TopKHeap.Entry[] ranked = matchResultCache.topMatches(menteeId);
+            if (ranked == null || ranked.length == 0) {
+                return null;
+            }
+            int ties = 1;
+            while (ties < ranked.length && ranked[ties].score() == ranked[0].score()) {
+                ties++;
+            }
+            matchingMetrics.candidatesExamined(MATCH_MENTOR, ties);
+            return ranked[ThreadLocalRandom.current().nextInt(ties)].id();
+        });
+        return winner == null ? Optional.empty()
+                : matchingMetrics.time(MATCH_MENTOR, "load", () -> userRepository.findSummaryById(winner));
+    }
 
-        // Check for matching coding languages
-        List<String> commonCodingLanguages = new ArrayList<>(mentee.getCodingLanguage());
-        commonCodingLanguages.retainAll(mentor.getCodingLanguage());
-        if (!commonCodingLanguages.isEmpty()) {
-            score++;
+    // Index of the best scoring candidate, picked uniformly at random among ties
+    // in a single pass (reservoir sampling); -1 when nothing scores above zero
+    private int pickBest(MatchProfile menteeProfile, int candidates, IntFunction<MatchProfile> profileAt) {
+        int best = -1;
+        int maxScore = 0;
+        int ties = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < candidates; i++) {
+            MatchProfile mentorProfile = profileAt.apply(i);
+            if (mentorProfile == null) {
+                continue;
+            }
+            int score = scoringModel.score(menteeProfile, mentorProfile);
+            if (score > maxScore) {
+                maxScore = score;
+                best = i;
+                ties = 1;
+            } else if (score == maxScore && score > 0 && random.nextInt(++ties) == 0) {
+                best = i;
+            }
         }
+        return best;
+    }
 
-        return score; // Return the total score
+    public int calculateMatchScore(User mentee, User mentor) {
+        return scoringModel.score(matchIndex.profileOf(mentee), matchIndex.profileOf(mentor));
     }
 }
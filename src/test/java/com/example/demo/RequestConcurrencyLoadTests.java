@@ -0,0 +1,133 @@
+package com.example.demo;
+
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Boots the app twice, once on the Tomcat platform-thread pool and once on virtual threads,
+// and fires the same burst of concurrent blocking requests at both.
+class RequestConcurrencyLoadTests {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestConcurrencyLoadTests.class);
+
+	private static final int CONCURRENT_REQUESTS = 200;
+	private static final long BLOCKING_MILLIS = 250;
+
+	@Test
+	@Tag("perf") // timing ratio between two app boots, too scheduler-dependent for the default suite
+	void virtualThreadsServeABurstOfBlockingRequestsConcurrently() throws Exception {
+		long platformMillis = burst("--spring.threads.virtual.enabled=false", "--server.tomcat.threads.max=10");
+		long virtualMillis = burst("--spring.threads.virtual.enabled=true");
+		logger.info("{} blocking requests: platform pool {} ms, virtual threads {} ms",
+				CONCURRENT_REQUESTS, platformMillis, virtualMillis);
+
+		// 10 platform threads need at least 200 / 10 * 250 ms = 5 s; virtual threads are not pool bound
+		assertThat(platformMillis).isGreaterThanOrEqualTo(CONCURRENT_REQUESTS / 10 * BLOCKING_MILLIS);
+		assertThat(virtualMillis).isLessThan(platformMillis / 2);
+	}
+
+	@Test
+	void asyncMatchEndpointAnswersOnVirtualThreads() throws Exception {
+		try (ConfigurableApplicationContext context = start("--spring.threads.virtual.enabled=true",
+				"--seed.enabled=false")) {
+			User mentor = save(context, "Mentor Ann", "mentor");
+			User mentee = save(context, "Mentee Ben", "mentee");
+
+			HttpClient client = HttpClient.newHttpClient();
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder(
+					uri(context, "/user/" + mentee.getId() + "/matches/async?k=5")).build(),
+					HttpResponse.BodyHandlers.ofString());
+
+			assertThat(response.statusCode()).isEqualTo(200);
+			assertThat(response.body())
+					.contains("\"mentorId\":" + mentor.getId())
+					.contains("\"mentorName\":\"Mentor Ann\"")
+					.contains("\"menteeId\":" + mentee.getId());
+		}
+	}
+
+	private static User save(ConfigurableApplicationContext context, String name, String role) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(role + "@example.com");
+		user.setRole(role);
+		user.setMeetingType("virtual");
+		user.setAvailability(new ArrayList<>(List.of("Monday")));
+		user.setCodingLanguage(new ArrayList<>(List.of("Java")));
+		user.setExpertise(new ArrayList<>());
+		User saved = context.getBean(UserRepository.class).save(user);
+		context.getBean(MatchIndex.class).index(saved);
+		return saved;
+	}
+
+	private static long burst(String... args) throws Exception {
+		try (ConfigurableApplicationContext context = start(args);
+			 ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			HttpClient client = HttpClient.newBuilder().executor(clients).build();
+			HttpRequest request = HttpRequest.newBuilder(uri(context, "/load-test/blocking")).build();
+
+			// warm up the connector and the dispatcher before timing
+			client.send(request, HttpResponse.BodyHandlers.discarding());
+
+			long start = System.nanoTime();
+			List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENT_REQUESTS);
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+			}
+			for (CompletableFuture<HttpResponse<Void>> response : responses) {
+				assertThat(response.get().statusCode()).isEqualTo(200);
+			}
+			return (System.nanoTime() - start) / 1_000_000;
+		}
+	}
+
+	private static ConfigurableApplicationContext start(String... args) {
+		List<String> arguments = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;NON_KEYWORDS=USER",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false"));
+		arguments.addAll(List.of(args));
+		return new SpringApplicationBuilder(DemoApplication.class, BlockingController.class)
+				.run(arguments.toArray(String[]::new));
+	}
+
+	private static URI uri(ConfigurableApplicationContext context, String path) {
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	// Stands in for a request that spends its time waiting on the database
+	@RestController
+	static class BlockingController {
+
+		@GetMapping("/load-test/blocking")
+		String blocking() throws InterruptedException {
+			Thread.sleep(BLOCKING_MILLIS);
+			return "ok";
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package com.example.demo.cache;
+
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:usercache;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(UserCache.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // loads outside any caller transaction, like a controller
+class UserCacheLoadTests {
+
+	@Autowired
+	private UserCache userCache;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void usersLoadedOutsideATransactionAreCachedWithTheirCollections() {
+		User user = new User();
+		user.setName("ada");
+		user.setEmail("ada-cache@example.com");
+		user.setRole("mentor");
+		user.setExpertise(new ArrayList<>(List.of("Backend")));
+		user.setCodingLanguage(new ArrayList<>(List.of("Java", "Go")));
+		user.setAvailability(new ArrayList<>(List.of("Monday")));
+		Long id = userRepository.save(user).getId();
+
+		User loaded = userCache.getById(id, () -> userRepository.findById(id)).orElseThrow();
+		User hit = userCache.getByEmail("ada-cache@example.com", () -> userRepository.findByEmail("ada-cache@example.com"))
+				.orElseThrow();
+
+		assertThat(loaded.getCodingLanguage()).containsExactly("Java", "Go"); // fetched in the loader's transaction
+		assertThat(hit).isNotSameAs(loaded);
+		assertThat(hit.getExpertise()).containsExactly("Backend");
+		assertThat(hit.getAvailability()).containsExactly("Monday");
+		assertThat(userCache.stats().get("byId")).hasFieldOrPropertyWithValue("hits", 1L);
+	}
+}
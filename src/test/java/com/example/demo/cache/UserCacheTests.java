@@ -0,0 +1,89 @@
+package com.example.demo.cache;
+
+import com.example.demo.models.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTests {
+
+	private final UserCache userCache = new UserCache(100, Duration.ofMinutes(10),
+			TransactionOperations.withoutTransaction());
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void servesRepeatReadsFromCacheUntilEvicted() {
+		User user = user(1L, "ada@example.com");
+
+		assertThat(userCache.getById(1L, () -> load(user))).contains(user);
+		assertThat(userCache.getById(1L, () -> load(user))).contains(user);
+		assertThat(userCache.getByEmail("ada@example.com", () -> load(user))).contains(user);
+		assertThat(loads).hasValue(1);
+
+		userCache.evict(1L);
+		assertThat(userCache.getByEmail("ada@example.com", () -> load(user))).contains(user);
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void emailLookupIgnoresEntryWhoseEmailChanged() {
+		User before = user(1L, "old@example.com");
+		userCache.getById(1L, () -> load(before));
+		userCache.evict(1L);
+		User after = user(1L, "new@example.com");
+		userCache.getById(1L, () -> load(after));
+
+		assertThat(userCache.getByEmail("old@example.com", Optional::empty)).isEmpty();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void reportsHitsAndMisses() {
+		User user = user(1L, null);
+		userCache.getById(1L, () -> load(user));
+		userCache.getById(1L, () -> load(user));
+
+		Map<String, Object> byId = (Map<String, Object>) userCache.stats().get("byId");
+		assertThat(byId).containsEntry("hits", 1L).containsEntry("misses", 1L).containsEntry("size", 1L);
+	}
+
+	@Test
+	void callersCannotChangeTheCachedProfile() {
+		User user = user(1L, "ada@example.com");
+		user.getCodingLanguage().add("Java");
+
+		userCache.getById(1L, () -> load(user)).orElseThrow().setName("changed by the loader's caller");
+		User hit = userCache.getById(1L, () -> load(user)).orElseThrow();
+		hit.getCodingLanguage().add("Go");
+		hit.setLocation("changed by a later caller");
+
+		User again = userCache.getById(1L, () -> load(user)).orElseThrow();
+		assertThat(again).isNotSameAs(hit);
+		assertThat(again.getName()).isNull();
+		assertThat(again.getLocation()).isNull();
+		assertThat(again.getCodingLanguage()).containsExactly("Java");
+		assertThat(loads).hasValue(1);
+	}
+
+	private Optional<User> load(User user) {
+		loads.incrementAndGet();
+		return Optional.of(user);
+	}
+
+	private static User user(Long id, String email) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		user.setExpertise(new ArrayList<>());
+		user.setCodingLanguage(new ArrayList<>());
+		user.setAvailability(new ArrayList<>());
+		return user;
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.demo.config;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.controllers.UserController;
+import com.example.demo.metrics.RequestStatementsFilter;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.TokenService;
+import com.example.demo.services.AssignmentService;
+import com.example.demo.services.MatchingService;
+import com.example.demo.services.UserServices;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = UserController.class,
+		excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RequestStatementsFilter.class))
+class WebConfigTests {
+
+	private static final String FRONTEND = "http://localhost:5173";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private UserServices userServices;
+
+	@MockBean
+	private MatchingService matchingService;
+
+	@MockBean
+	private AssignmentService assignmentService;
+
+	@MockBean
+	private UserRepository userRepository;
+
+	@MockBean
+	private UserCache userCache;
+
+	@MockBean
+	private TokenService tokenService;
+
+	@MockBean(name = "matchExecutor")
+	private ThreadPoolTaskExecutor matchExecutor;
+
+	@Test
+	void frontendMayPreflightAProfilePatch() throws Exception {
+		mockMvc.perform(options("/user/{id}", 1)
+						.header(HttpHeaders.ORIGIN, FRONTEND)
+						.header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "PATCH")
+						.header(HttpHeaders.ACCESS_CONTROL_REQUEST_HEADERS, "Content-Type"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, FRONTEND))
+				.andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, containsString("PATCH")));
+	}
+
+	@Test
+	void otherOriginsAreStillRefused() throws Exception {
+		mockMvc.perform(options("/user/{id}", 1)
+						.header(HttpHeaders.ORIGIN, "http://elsewhere.example.com")
+						.header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "PATCH"))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,157 @@
+package com.example.demo.controllers;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.metrics.RequestStatementsFilter;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.TokenService;
+import com.example.demo.services.AssignmentService;
+import com.example.demo.services.MatchingService;
+import com.example.demo.services.UserServices;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Only the mentor or the mentee named in the path may add or remove that mentorship
+@WebMvcTest(controllers = UserController.class, properties = "security.token.secret=" + UserControllerAuthorizationTests.SECRET,
+		excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = RequestStatementsFilter.class))
+@Import(TokenService.class)
+class UserControllerAuthorizationTests {
+
+	static final String SECRET = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+	private static final long MENTOR = 1;
+	private static final long MENTEE = 2;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TokenService tokenService;
+
+	@MockBean
+	private UserServices userServices;
+
+	@MockBean
+	private MatchingService matchingService;
+
+	@MockBean
+	private AssignmentService assignmentService;
+
+	@MockBean
+	private UserRepository userRepository;
+
+	@MockBean
+	private UserCache userCache;
+
+	@MockBean(name = "matchExecutor")
+	private ThreadPoolTaskExecutor matchExecutor;
+
+	@BeforeEach
+	void stubServices() {
+		when(userServices.addMentee(MENTOR, MENTEE)).thenReturn(Optional.of(user(MENTOR, "mentor")));
+		when(userServices.removeMentee(MENTOR, MENTEE)).thenReturn(Optional.of(user(MENTOR, "mentor")));
+	}
+
+	@Test
+	void missingHeaderIsUnauthorized() throws Exception {
+		for (MockHttpServletRequestBuilder request : requests()) {
+			mockMvc.perform(request).andExpect(status().isUnauthorized());
+		}
+		verifyNoInteractions(userServices);
+	}
+
+	@Test
+	void forgedOrExpiredTokensAreUnauthorized() throws Exception {
+		String menteeToken = tokenService.issue(user(MENTEE, "mentee"));
+		// the mentee's signature on a payload claiming to be the mentor
+		String forged = Base64.getUrlEncoder().withoutPadding().encodeToString("1:9999999999:mentor".getBytes())
+				+ menteeToken.substring(menteeToken.indexOf('.'));
+		String foreign = new TokenService(Base64.getEncoder().encodeToString(new byte[32]), Duration.ofHours(1))
+				.issue(user(MENTOR, "mentor"));
+		String expired = new TokenService(SECRET, Duration.ofSeconds(-1)).issue(user(MENTOR, "mentor"));
+
+		for (String header : List.of("Bearer " + forged, "Bearer " + foreign, "Bearer " + expired, "Basic " + menteeToken)) {
+			for (MockHttpServletRequestBuilder request : requests()) {
+				mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, header)).andExpect(status().isUnauthorized());
+			}
+		}
+		verifyNoInteractions(userServices);
+	}
+
+	@Test
+	void aMentorTokenForAnotherMentorIsForbidden() throws Exception {
+		String otherMentor = bearer(user(3L, "mentor"));
+		String mentorIdAsMentee = bearer(user(MENTOR, "mentee")); // right id, wrong side of the pair
+
+		for (String token : List.of(otherMentor, mentorIdAsMentee)) {
+			for (MockHttpServletRequestBuilder request : requests()) {
+				mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, token)).andExpect(status().isForbidden());
+			}
+		}
+		verifyNoInteractions(userServices);
+	}
+
+	@Test
+	void aMenteeTokenForAnotherMenteeIsForbidden() throws Exception {
+		String otherMentee = bearer(user(4L, "mentee"));
+		String menteeIdAsMentor = bearer(user(MENTEE, "mentor"));
+
+		for (String token : List.of(otherMentee, menteeIdAsMentor)) {
+			for (MockHttpServletRequestBuilder request : requests()) {
+				mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, token)).andExpect(status().isForbidden());
+			}
+		}
+		verifyNoInteractions(userServices);
+	}
+
+	@Test
+	void eitherPartyMayAddAndRemove() throws Exception {
+		for (User party : List.of(user(MENTOR, "mentor"), user(MENTEE, "mentee"))) {
+			for (MockHttpServletRequestBuilder request : requests()) {
+				mockMvc.perform(request.header(HttpHeaders.AUTHORIZATION, bearer(party))).andExpect(status().isOk());
+			}
+		}
+		verify(userServices, times(2)).addMentee(MENTOR, MENTEE);
+		verify(userServices, times(2)).removeMentee(MENTOR, MENTEE);
+	}
+
+	private static List<MockHttpServletRequestBuilder> requests() {
+		return List.of(post("/user/{mentorId}/add-mentee/{menteeId}", MENTOR, MENTEE),
+				delete("/user/{mentorId}/remove-mentee/{menteeId}", MENTOR, MENTEE));
+	}
+
+	private String bearer(User user) {
+		return "Bearer " + tokenService.issue(user);
+	}
+
+	private static User user(Long id, String role) {
+		User user = new User();
+		user.setId(id);
+		user.setName(role);
+		user.setRole(role);
+		return user;
+	}
+}
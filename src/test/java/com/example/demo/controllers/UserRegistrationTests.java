@@ -0,0 +1,44 @@
+package com.example.demo.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:registration;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"seed.enabled=false",
+		"security.password.bcrypt-strength=4"
+})
+class UserRegistrationTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void onlyATakenEmailIsAConflict() {
+		assertThat(register("grace@example.com", "mentor").getStatusCode()).isEqualTo(HttpStatus.CREATED);
+
+		ResponseEntity<String> taken = register(" Grace@Example.com", "mentee");
+		assertThat(taken.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+		assertThat(taken.getBody()).isEqualTo("Email is already in use.");
+
+		// breaks a different constraint (the role column is 16 characters): the data is wrong, not taken
+		ResponseEntity<String> invalid = register("linus@example.com", "mentor-and-mentee-both");
+		assertThat(invalid.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	private ResponseEntity<String> register(String email, String role) {
+		return restTemplate.postForEntity("/user/register",
+				Map.of("name", "user", "email", email, "password", "secret", "role", role), String.class);
+	}
+}
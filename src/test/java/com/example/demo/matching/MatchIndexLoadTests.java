@@ -0,0 +1,93 @@
+package com.example.demo.matching;
+
+import com.example.demo.matching.MatchIndex.Attribute;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:matchload;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MatchIndexLoadTests {
+
+	private static final User VIRTUAL_MENTEE = user("mentee", List.of(), List.of());
+	private static final Map<Attribute, List<String>> MONDAY = Map.of(Attribute.AVAILABILITY, List.of("Monday"));
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void restartRestoresTheSnapshotAndCatchesUpOnChangesSince(@TempDir Path directory) {
+		User ann = userRepository.save(user("ann", List.of("Monday"), List.of("Java")));
+		User bob = userRepository.save(user("bob", List.of("Monday"), List.of("Go")));
+		User cat = userRepository.save(user("cat", List.of("Monday"), List.of("Rust")));
+		Path file = directory.resolve("match.snapshot");
+
+		MatchIndex first = new MatchIndex(userRepository, 0, file.toString());
+		assertThat(first.candidates("mentor", VIRTUAL_MENTEE, MONDAY))
+				.containsExactlyInAnyOrder(ann.getId(), bob.getId(), cat.getId());
+		assertThat(first.profile(ann.getId()).getSets()[1]).isNotEmpty(); // coding languages came with it
+		assertThat(file).exists();
+
+		bob.setAvailability(new ArrayList<>(List.of("Tuesday")));
+		userRepository.save(bob);
+		userRepository.delete(cat);
+		User dan = userRepository.save(user("dan", List.of("Monday"), List.of("Java")));
+		// a row nobody touched since the snapshot is taken from the file, not re-read
+		jdbcTemplate.update("UPDATE user SET years_of_experience = 30, updated_at = ? WHERE id = ?",
+				Timestamp.from(Instant.parse("2000-01-01T00:00:00Z")), ann.getId());
+
+		MatchIndex second = new MatchIndex(userRepository, 0, file.toString());
+		assertThat(second.candidates("mentor", VIRTUAL_MENTEE, MONDAY))
+				.containsExactlyInAnyOrder(ann.getId(), dan.getId());
+		assertThat(second.candidates("mentor", VIRTUAL_MENTEE, Map.of(Attribute.AVAILABILITY, List.of("Tuesday"))))
+				.containsExactly(bob.getId());
+		assertThat(second.profile(ann.getId()).getYearsOfExperience()).isEqualTo(5);
+	}
+
+	@Test
+	void unreadableSnapshotFallsBackToTheDatabase(@TempDir Path directory) throws Exception {
+		User ann = userRepository.save(user("ann", List.of("Monday"), List.of("Java")));
+		Path file = directory.resolve("match.snapshot");
+		Files.write(file, new byte[]{1, 2, 3});
+
+		MatchIndex index = new MatchIndex(userRepository, 0, file.toString());
+		assertThat(index.candidates("mentor", VIRTUAL_MENTEE, MONDAY)).containsExactly(ann.getId());
+		assertThat(MatchSnapshot.read(file).size()).isEqualTo(1); // and the file is rewritten
+	}
+
+	private static User user(String name, List<String> availability, List<String> codingLanguage) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name + "@example.com");
+		user.setRole(name.equals("mentee") ? "mentee" : "mentor");
+		user.setMeetingType("virtual");
+		user.setYearsOfExperience(5);
+		user.setAvailability(new ArrayList<>(availability));
+		user.setCodingLanguage(new ArrayList<>(codingLanguage));
+		user.setExpertise(new ArrayList<>());
+		user.setInterests(List.of("Cloud"));
+		return user;
+	}
+}
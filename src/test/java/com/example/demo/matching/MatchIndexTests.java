@@ -0,0 +1,170 @@
+package com.example.demo.matching;
+
+import com.example.demo.matching.MatchIndex.Attribute;
+import com.example.demo.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchIndexTests {
+
+	private static final User VIRTUAL_MENTEE = user(99L, "mentee", "virtual", List.of(), List.of());
+
+	private MatchIndex matchIndex;
+
+	@BeforeEach
+	void setUp() {
+		matchIndex = new MatchIndex(null, 0, "");
+		matchIndex.rebuild(List.of(
+				user(1L, "mentor", "virtual", List.of("Monday"), List.of("Java", "Python")),
+				user(2L, "mentor", "virtual", List.of("Tuesday"), List.of("Java")),
+				user(3L, "mentor", "in-person", List.of("Monday"), List.of("Java")),
+				user(4L, "mentee", "virtual", List.of("Monday"), List.of("Java"))));
+	}
+
+	@Test
+	void candidatesIntersectEveryRequiredAttribute() {
+		assertThat(matchIndex.candidates("mentor", VIRTUAL_MENTEE, Map.of(
+				Attribute.AVAILABILITY, List.of("monday", "Friday"),
+				Attribute.CODING_LANGUAGE, List.of("Java"))))
+				.containsExactly(1L);
+	}
+
+	@Test
+	void emptyAttributeMatchesNobody() {
+		assertThat(matchIndex.candidates("mentor", VIRTUAL_MENTEE, Map.of(
+				Attribute.AVAILABILITY, List.of()))).isEmpty();
+	}
+
+	@Test
+	void reindexReplacesStalePostingsAndRemoveDropsUser() {
+		matchIndex.index(user(2L, "mentor", "virtual", List.of("Monday"), List.of("Go")));
+
+		assertThat(matchIndex.candidates("mentor", VIRTUAL_MENTEE, Map.of(
+				Attribute.AVAILABILITY, List.of("Monday")))).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(matchIndex.candidates("mentor", VIRTUAL_MENTEE, Map.of(
+				Attribute.AVAILABILITY, List.of("Tuesday")))).isEmpty();
+
+		matchIndex.remove(1L);
+		assertThat(matchIndex.candidates("mentor", VIRTUAL_MENTEE, Map.of(
+				Attribute.AVAILABILITY, List.of("Monday")))).containsExactly(2L);
+	}
+
+	@Test
+	void inPersonCandidatesStayInsideTheNormalizedLocation() {
+		matchIndex.rebuild(List.of(
+				located(user(1L, "mentor", "in-person", List.of("Monday"), List.of("Java")), "New York"),
+				located(user(2L, "mentor", "in-person", List.of("Monday"), List.of("Java")), "Texas"),
+				located(user(3L, "mentor", "virtual", List.of("Monday"), List.of("Java")), "New York")));
+		User mentee = located(user(4L, "mentee", "in-person", List.of("Monday"), List.of("Java")), "  new york. ");
+
+		assertThat(matchIndex.candidates("mentor", mentee, Map.of(
+				Attribute.AVAILABILITY, List.of("Monday")))).containsExactly(1L);
+		assertThat(matchIndex.countReachable("mentor", matchIndex.profileOf(mentee))).isEqualTo(1);
+
+		matchIndex.index(located(user(2L, "mentor", "in-person", List.of("Monday"), List.of("Java")), "NEW YORK"));
+		assertThat(matchIndex.candidates("mentor", mentee, Map.of(
+				Attribute.AVAILABILITY, List.of("Monday")))).containsExactlyInAnyOrder(1L, 2L);
+	}
+
+	@Test
+	void geoCellsReachNeighbouringCellsButNotDistantOnes() {
+		matchIndex = new MatchIndex(null, 25, "");
+		matchIndex.rebuild(List.of(
+				at(user(1L, "mentor", "in-person", List.of("Monday"), List.of("Java")), 40.71, -74.00), // Manhattan
+				at(user(2L, "mentor", "in-person", List.of("Monday"), List.of("Java")), 40.73, -73.79), // Queens, ~18 km
+				at(user(3L, "mentor", "in-person", List.of("Monday"), List.of("Java")), 39.95, -75.17), // Philadelphia
+				at(user(4L, "mentor", "in-person", List.of("Monday"), List.of("Java")), 40.71, 179.99),
+				at(user(5L, "mentor", "in-person", List.of("Monday"), List.of("Java")), 40.71, -179.99)));
+		Map<Attribute, List<String>> monday = Map.of(Attribute.AVAILABILITY, List.of("Monday"));
+
+		assertThat(matchIndex.candidates("mentor",
+				at(user(9L, "mentee", "in-person", List.of(), List.of()), 40.71, -73.90), monday))
+				.containsExactlyInAnyOrder(1L, 2L);
+		// cells wrap around the antimeridian
+		assertThat(matchIndex.candidates("mentor",
+				at(user(9L, "mentee", "in-person", List.of(), List.of()), 40.71, 180.0), monday))
+				.containsExactlyInAnyOrder(4L, 5L);
+	}
+
+	@Test
+	void snapshotFileRestoresPartitionsPostingsAndScores(@TempDir Path directory) throws IOException {
+		matchIndex = new MatchIndex(null, 25, "");
+		List<User> users = new ArrayList<>();
+		for (long id = 1; id <= 200; id++) {
+			User user = user(id, id % 3 == 0 ? "mentee" : "mentor", id % 2 == 0 ? "virtual" : "in-person",
+					List.of("day" + id % 7), List.of("language" + id % 5, "language" + id % 11));
+			user.setSkills(List.of("skill" + id % 90)); // spills into a second bitset word
+			user.setYearsOfExperience((int) (id % 13));
+			users.add(id % 4 == 1 ? at(user, 40 + id % 5 * 0.1, -74 + id % 3 * 0.1) : located(user, "City " + id % 4));
+		}
+		matchIndex.rebuild(users);
+		Path file = directory.resolve("match.snapshot");
+		matchIndex.snapshot().write(file);
+
+		MatchIndex restored = new MatchIndex(null, 25, "");
+		restored.restore(MatchSnapshot.read(file));
+
+		ScoringModel scoringModel = ScoringModelTests.defaults();
+		for (User mentee : users) {
+			Map<Attribute, List<String>> required = Map.of(Attribute.CODING_LANGUAGE, mentee.getCodingLanguage());
+			assertThat(restored.candidates("mentor", mentee, required))
+					.isEqualTo(matchIndex.candidates("mentor", mentee, required));
+			MatchProfile original = matchIndex.profile(mentee.getId());
+			MatchProfile copy = restored.profile(mentee.getId());
+			assertThat(copy.getPartition()).isEqualTo(original.getPartition());
+			assertThat(copy.getReach()).isEqualTo(original.getReach());
+			for (User mentor : users) {
+				assertThat(scoringModel.score(copy, restored.profile(mentor.getId())))
+						.isEqualTo(scoringModel.score(original, matchIndex.profile(mentor.getId())));
+			}
+		}
+	}
+
+	private static User located(User user, String location) {
+		user.setLocation(location);
+		return user;
+	}
+
+	private static User at(User user, double latitude, double longitude) {
+		user.setLatitude(latitude);
+		user.setLongitude(longitude);
+		return user;
+	}
+
+	@Test
+	void profilesOfUnindexedUsersOnlyLookValuesUp() {
+		int languages = matchIndex.dictionarySize(Attribute.CODING_LANGUAGE);
+		User stranger = user(100L, "mentee", "virtual", List.of("Monday"), List.of("Java", "Cobol"));
+		ScoringModel languagesOnly = new ScoringModel(0, 0, 0, 10, 0, 0, 0, 0, 0);
+
+		MatchProfile unindexed = matchIndex.profileOf(stranger);
+
+		assertThat(matchIndex.dictionarySize(Attribute.CODING_LANGUAGE)).isEqualTo(languages);
+		// Cobol is unknown, so it shares nothing but still counts: Java of {Java, Cobol}, half of 10
+		assertThat(languagesOnly.score(unindexed, matchIndex.profile(2L))).isEqualTo(5);
+		matchIndex.index(stranger);
+		assertThat(matchIndex.dictionarySize(Attribute.CODING_LANGUAGE)).isEqualTo(languages + 1);
+		assertThat(languagesOnly.score(matchIndex.profileOf(stranger), matchIndex.profile(2L))).isEqualTo(5);
+	}
+
+	private static User user(Long id, String role, String meetingType, List<String> availability,
+							 List<String> codingLanguage) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setMeetingType(meetingType);
+		user.setAvailability(new ArrayList<>(availability));
+		user.setCodingLanguage(new ArrayList<>(codingLanguage));
+		user.setExpertise(new ArrayList<>());
+		return user;
+	}
+}
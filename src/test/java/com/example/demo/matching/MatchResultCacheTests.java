@@ -0,0 +1,149 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MatchResultCacheTests {
+
+	private static final List<String> DAYS = List.of("Monday", "Tuesday", "Wednesday", "Thursday", "Friday");
+	private static final List<String> LANGUAGES = List.of("Java", "Python", "Go", "Rust");
+	private static final List<String> MEETING_TYPES = List.of("virtual", "in-person");
+
+	private final Random random = new Random(42);
+	private final Set<Long> open = new HashSet<>();
+
+	@Test
+	void incrementalRefreshMatchesFullRecompute() {
+		List<User> users = new ArrayList<>();
+		for (long id = 1; id <= 40; id++) {
+			users.add(randomUser(id, "mentor"));
+			open.add(id);
+		}
+		for (long id = 101; id <= 110; id++) {
+			users.add(randomUser(id, "mentee"));
+		}
+		MatchIndex matchIndex = new MatchIndex(null, 0, "");
+		matchIndex.rebuild(users);
+
+		MatchResultCache cache = new MatchResultCache(matchIndex, ScoringModelTests.defaults(), openSlotsRepository(), 5, 1000, Duration.ofHours(1), Duration.ofHours(1), 5);
+
+		for (int round = 0; round < 200; round++) {
+			for (long menteeId = 101; menteeId <= 110; menteeId++) {
+				cache.topMatches(menteeId);
+			}
+			long mentorId = 1 + random.nextInt(40);
+			if (random.nextBoolean()) {
+				matchIndex.index(randomUser(mentorId, "mentor"));
+				cache.userChanged(mentorId, "mentor");
+			} else {
+				if (!open.remove(mentorId)) {
+					open.add(mentorId);
+				}
+				cache.capacityChanged(List.of(mentorId));
+			}
+			cache.drain();
+
+			for (long menteeId = 101; menteeId <= 110; menteeId++) {
+				assertThat(cache.topMatches(menteeId))
+						.as("round %d mentee %d", round, menteeId)
+						.containsExactly(cache.scan(matchIndex.profile(menteeId), null, 5));
+			}
+		}
+	}
+
+	@Test
+	void aListScannedWhileADrainRunsIsNotKept() {
+		List<User> users = new ArrayList<>();
+		users.add(user(1, "mentor", DAYS)); // the best match by far
+		for (long id = 2; id <= 10; id++) {
+			users.add(user(id, "mentor", DAYS.subList(0, 1)));
+		}
+		users.add(user(101, "mentee", DAYS));
+		users.forEach(user -> open.add(user.getId()));
+		MatchIndex matchIndex = new MatchIndex(null, 0, "");
+		matchIndex.rebuild(users);
+
+		AtomicReference<Runnable> duringScan = new AtomicReference<>();
+		ScoringModel scoringModel = new ScoringModel(15, 5, 20, 25, 20, 5, 10, 2, 5) {
+			@Override
+			public int[] scoreAll(MatchProfile mentee, MatchColumns mentors) {
+				Runnable hook = duringScan.getAndSet(null);
+				if (hook != null) {
+					hook.run();
+				}
+				return super.scoreAll(mentee, mentors);
+			}
+		};
+		MatchResultCache cache = new MatchResultCache(matchIndex, scoringModel, openSlotsRepository(), 5, 1000,
+				Duration.ofHours(1), Duration.ofHours(1), 5);
+
+		// mentor 1 fills up and the whole drain runs after the scan has read the open mentors
+		duringScan.set(() -> {
+			open.remove(1L);
+			cache.capacityChanged(List.of(1L));
+			Thread drain = new Thread(cache::drain);
+			drain.start();
+			try {
+				drain.join();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertThat(cache.topMatches(101L)).extracting(TopKHeap.Entry::id).doesNotContain(1L).hasSize(5);
+		assertThat(cache.topMatches(101L)).containsExactly(cache.scan(matchIndex.profile(101L), null, 5));
+	}
+
+	private UserRepository openSlotsRepository() {
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findMentorIdsWithOpenSlots(anyInt())).thenAnswer(invocation -> new ArrayList<>(open));
+		when(userRepository.findMentorIdsWithOpenSlotsIn(anyCollection(), anyInt())).thenAnswer(invocation -> {
+			Collection<Long> ids = invocation.getArgument(0);
+			return ids.stream().filter(open::contains).toList();
+		});
+		return userRepository;
+	}
+
+	private static User user(long id, String role, List<String> availability) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setMeetingType("virtual");
+		user.setAvailability(new ArrayList<>(availability));
+		user.setCodingLanguage(new ArrayList<>(LANGUAGES));
+		user.setExpertise(new ArrayList<>());
+		return user;
+	}
+
+	private User randomUser(long id, String role) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setMeetingType(MEETING_TYPES.get(random.nextInt(MEETING_TYPES.size())));
+		user.setAvailability(sample(DAYS));
+		user.setCodingLanguage(sample(LANGUAGES));
+		user.setExpertise(new ArrayList<>());
+		return user;
+	}
+
+	private List<String> sample(List<String> values) {
+		List<String> sampled = new ArrayList<>();
+		for (String value : values) {
+			if (random.nextInt(3) == 0) {
+				sampled.add(value);
+			}
+		}
+		return sampled;
+	}
+}
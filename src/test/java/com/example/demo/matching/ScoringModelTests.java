@@ -0,0 +1,96 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringModelTests {
+
+	private final MatchIndex matchIndex = new MatchIndex(null, 0, "");
+
+	// the weights shipped in application.properties
+	static ScoringModel defaults() {
+		return new ScoringModel(15, 5, 20, 25, 20, 5, 10, 2, 5);
+	}
+
+	@Test
+	void weighsSharedAttributesByJaccardOverlapAndPenalizesJuniorMentors() {
+		matchIndex.rebuild(List.of(
+				user(1L, "Texas", 1, List.of("Monday", "Tuesday"), List.of("Java"), List.of("Spring")),
+				user(2L, " texas", 10, List.of("Monday"), List.of("Java", "Go"), List.of("Spring")),
+				user(3L, "Ohio", 2, List.of("Monday"), List.of("Java", "Go"), List.of("Spring"))));
+		MatchProfile mentee = matchIndex.profile(1L);
+		MatchProfile senior = matchIndex.profile(2L);
+		MatchProfile junior = matchIndex.profile(3L);
+
+		// 15 meeting type + 5 location + 20 * 1/2 + 25 * 1/2 + 20 * 1/1 = 62.5
+		assertThat(defaults().score(mentee, senior)).isEqualTo(63);
+		// no location, and one year short of the two year gap costs 5
+		assertThat(defaults().score(mentee, junior)).isEqualTo(53);
+		// a zero weight switches a feature off
+		assertThat(new ScoringModel(0, 0, 0, 10, 0, 0, 0, 0, 0).score(mentee, senior)).isEqualTo(5);
+	}
+
+	@Test
+	void columnarScoresMatchPairwiseScores() {
+		matchIndex.rebuild(List.of());
+		Random random = new Random(7);
+		List<MatchProfile> mentors = new ArrayList<>();
+		for (long id = 1; id <= 500; id++) {
+			User mentor = randomUser(random, id);
+			matchIndex.index(mentor);
+			mentors.add(matchIndex.profile(id));
+		}
+		MatchColumns columns = MatchColumns.of(mentors);
+		ScoringModel scoringModel = defaults();
+
+		// mentees are not indexed, so values no mentor has are scored through the lookup-only fallback
+		for (long id = 1000; id < 1020; id++) {
+			MatchProfile mentee = matchIndex.profileOf(randomUser(random, id));
+			int[] scores = scoringModel.scoreAll(mentee, columns);
+			for (int row = 0; row < columns.size(); row++) {
+				MatchProfile mentor = mentors.get(row);
+				assertThat(columns.userId(row)).isEqualTo(mentor.getUserId());
+				assertThat(scores[row]).as("mentee %d mentor %d", id, mentor.getUserId())
+						.isEqualTo(scoringModel.score(mentee, mentor));
+			}
+		}
+	}
+
+	private static User randomUser(Random random, long id) {
+		User user = user(id, random.nextBoolean() ? "Texas" : "Ohio", random.nextInt(15),
+				sample(random, "day", 7), sample(random, "language", 20), sample(random, "topic", 40));
+		// more values than fit in one bitset word
+		user.setInterests(sample(random, "interest", 150));
+		user.setSkills(sample(random, "skill", 90));
+		return user;
+	}
+
+	private static List<String> sample(Random random, String prefix, int values) {
+		List<String> sampled = new ArrayList<>();
+		int count = random.nextInt(5);
+		for (int i = 0; i < count; i++) {
+			sampled.add(prefix + random.nextInt(values));
+		}
+		return sampled;
+	}
+
+	private static User user(Long id, String location, int yearsOfExperience, List<String> availability,
+							 List<String> codingLanguage, List<String> expertise) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(id < 1000 ? "mentor" : "mentee");
+		user.setMeetingType("virtual");
+		user.setLocation(location);
+		user.setYearsOfExperience(yearsOfExperience);
+		user.setAvailability(new ArrayList<>(availability));
+		user.setCodingLanguage(new ArrayList<>(codingLanguage));
+		user.setExpertise(new ArrayList<>(expertise));
+		return user;
+	}
+}
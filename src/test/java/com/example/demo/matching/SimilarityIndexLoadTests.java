@@ -0,0 +1,59 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:similarityload;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SimilarityIndexLoadTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void coldLoadPagesThroughMentorsAndMatchesARebuildFromEntities() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 2_300; i++) { // more than two pages of mentors
+			users.add(user(i, i % 5 == 0 ? "mentee" : "mentor"));
+		}
+		userRepository.saveAll(users);
+		long mentors = users.stream().filter(user -> user.getRole().equals("mentor")).count();
+
+		SimilarityIndex loaded = new SimilarityIndex(userRepository, 128, 32, 13, 6, 5000);
+		loaded.ensureLoaded();
+		SimilarityIndex rebuilt = new SimilarityIndex(null, 128, 32, 13, 6, 5000);
+		rebuilt.rebuild(users);
+
+		assertThat(loaded.size()).isEqualTo(mentors).isEqualTo(rebuilt.size());
+		User query = users.get(7);
+		assertThat(loaded.similar(query, 10)).containsExactly(rebuilt.similar(query, 10));
+	}
+
+	private static User user(int n, String role) {
+		User user = new User();
+		user.setName(role + n);
+		user.setEmail(role + n + "@example.com");
+		user.setRole(role);
+		user.setMeetingType("virtual");
+		user.setPersonalStatement("I mentor people on topic " + (n % 37) + " and area " + (n % 11));
+		user.setInterests(List.of("interest" + (n % 13)));
+		user.setSkills(List.of("skill" + (n % 17), "skill" + (n % 7)));
+		user.setAvailability(new ArrayList<>());
+		user.setCodingLanguage(new ArrayList<>());
+		user.setExpertise(new ArrayList<>());
+		return user;
+	}
+}
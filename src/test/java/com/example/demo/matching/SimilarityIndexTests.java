@@ -0,0 +1,172 @@
+package com.example.demo.matching;
+
+import com.example.demo.models.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimilarityIndexTests {
+
+	private static final Logger logger = LoggerFactory.getLogger(SimilarityIndexTests.class);
+
+	private static final int QUERIES = 200;
+	private static final int K = 10;
+
+	@Test
+	void lshRecallAgainstExactScan() {
+		Run run = compare(30_000);
+
+		assertThat(run.recall()).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	@Tag("perf")
+	void lshRecallAndLatencyAgainstExactScan() {
+		Run run = compare(100_000);
+
+		assertThat(run.recall()).isGreaterThanOrEqualTo(0.9);
+		assertThat(run.approximateMillis()).isLessThan(run.exactMillis() / 2);
+	}
+
+	// Recall@K of the LSH lookup against the exact scan, and the mean time per query of each
+	private static Run compare(int mentorCount) {
+		SimilarityIndex index = new SimilarityIndex(null, 128, 32, 13, 6, 0); // the shipped settings, minus the exact fallback
+		Random random = new Random(3);
+		List<User> mentors = new ArrayList<>(mentorCount);
+		for (long id = 1; id <= mentorCount; id++) {
+			mentors.add(profile(random, id, "mentor"));
+		}
+		index.rebuild(mentors);
+		assertThat(index.size()).isEqualTo(mentorCount);
+
+		List<User> queries = new ArrayList<>();
+		for (long id = 0; id < QUERIES; id++) {
+			queries.add(profile(random, mentorCount + 1 + id, "mentee"));
+		}
+		// warm both paths up before timing them
+		queries.forEach(query -> index.similar(query, K));
+		queries.stream().limit(20).forEach(query -> index.exact(query, K));
+
+		long approximateNanos = 0;
+		long exactNanos = 0;
+		int found = 0;
+		for (User query : queries) {
+			long start = System.nanoTime();
+			TopKHeap.Entry[] approximate = index.similar(query, K);
+			approximateNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			TopKHeap.Entry[] exact = index.exact(query, K);
+			exactNanos += System.nanoTime() - start;
+
+			Set<Long> approximateIds = new HashSet<>();
+			for (TopKHeap.Entry entry : approximate) {
+				approximateIds.add(entry.id());
+			}
+			for (TopKHeap.Entry entry : exact) {
+				if (approximateIds.contains(entry.id())) {
+					found++;
+				}
+			}
+		}
+		Run run = new Run(found / (double) (QUERIES * K), approximateNanos / 1e6 / QUERIES, exactNanos / 1e6 / QUERIES);
+		logger.info("{} mentors: recall@{} {}, LSH {} ms/query, exact scan {} ms/query",
+				mentorCount, K, run.recall(), run.approximateMillis(), run.exactMillis());
+		return run;
+	}
+
+	private record Run(double recall, double approximateMillis, double exactMillis) {
+	}
+
+	@Test
+	void reindexMovesAMentorAndRemoveDropsIt() {
+		SimilarityIndex index = new SimilarityIndex(null, 64, 4, 6, 1, 0);
+		index.rebuild(List.of(
+				mentor(1L, "I build Spring Boot microservices in Java", List.of("Spring"), List.of("Java")),
+				mentor(2L, "Pixel art and Unity game development", List.of("Games"), List.of("C#")),
+				mentee(3L, "I build Spring Boot microservices in Java", List.of("Spring"), List.of("Java"))));
+		User query = mentee(9L, "Learning Java and Spring microservices", List.of("Spring"), List.of("Java"));
+
+		assertThat(index.size()).isEqualTo(2); // mentees are not indexed
+		assertThat(index.similar(query, 1)[0].id()).isEqualTo(1L);
+
+		index.index(mentor(2L, "Java Spring Boot microservices mentor", List.of("Spring"), List.of("Java")));
+		index.index(mentor(1L, "Unity game development and pixel art", List.of("Games"), List.of("C#")));
+		assertThat(index.similar(query, 1)[0].id()).isEqualTo(2L);
+
+		index.remove(2L);
+		assertThat(index.size()).isEqualTo(1);
+		// mentor 1 is still indexed but now shares nothing with the query
+		assertThat(index.exact(query, 5)).isEmpty();
+	}
+
+	// Profiles written around one main and one side topic, with common filler words mixed in
+	private static User profile(Random random, long id, String role) {
+		int main = zipf(random, TOPICS);
+		int side = zipf(random, TOPICS);
+		StringBuilder statement = new StringBuilder();
+		int words = 15 + random.nextInt(20);
+		for (int i = 0; i < words; i++) {
+			double roll = random.nextDouble();
+			String word = roll < 0.55 ? topicWord(main, zipf(random, WORDS_PER_TOPIC))
+					: roll < 0.8 ? topicWord(side, zipf(random, WORDS_PER_TOPIC))
+					: "common" + zipf(random, 300);
+			statement.append(word).append(' ');
+		}
+		List<String> interests = List.of("interest " + main, "interest " + side);
+		List<String> skills = new ArrayList<>();
+		for (int i = 0; i < 1 + random.nextInt(3); i++) {
+			skills.add("skill " + main + "-" + zipf(random, 8));
+		}
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		user.setPersonalStatement(statement.toString());
+		user.setInterests(interests);
+		user.setSkills(skills);
+		return user;
+	}
+
+	private static final int TOPICS = 60;
+	private static final int WORDS_PER_TOPIC = 40;
+
+	private static String topicWord(int topic, int word) {
+		return "topic" + topic + "word" + word;
+	}
+
+	private static int zipf(Random random, int n) {
+		double total = 0;
+		for (int i = 1; i <= n; i++) {
+			total += 1.0 / i;
+		}
+		double target = random.nextDouble() * total;
+		for (int i = 1; i <= n; i++) {
+			target -= 1.0 / i;
+			if (target <= 0) {
+				return i - 1;
+			}
+		}
+		return n - 1;
+	}
+
+	private static User mentor(Long id, String statement, List<String> interests, List<String> skills) {
+		User user = mentee(id, statement, interests, skills);
+		user.setRole("mentor");
+		return user;
+	}
+
+	private static User mentee(Long id, String statement, List<String> interests, List<String> skills) {
+		User user = new User();
+		user.setId(id);
+		user.setRole("mentee");
+		user.setPersonalStatement(statement);
+		user.setInterests(interests);
+		user.setSkills(skills);
+		return user;
+	}
+}
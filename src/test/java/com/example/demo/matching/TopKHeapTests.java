@@ -0,0 +1,48 @@
+package com.example.demo.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKHeapTests {
+
+	private static final int[] SCORES = {1, 3, 2, 3, 1, 2, 3, 2, 1, 3};
+
+	@Test
+	void drainsBestEntriesInRankOrder() {
+		TopKHeap heap = new TopKHeap(4);
+		for (int id = 0; id < SCORES.length; id++) {
+			heap.offer(SCORES[id], id);
+		}
+
+		assertThat(heap.drain()).containsExactly(
+				new TopKHeap.Entry(3, 1), new TopKHeap.Entry(3, 3),
+				new TopKHeap.Entry(3, 6), new TopKHeap.Entry(3, 9));
+	}
+
+	@Test
+	void cursorPagesWalkTheFullRankingWithoutGapsOrRepeats() {
+		List<Long> walked = new ArrayList<>();
+		MatchCursor cursor = null;
+		do {
+			TopKHeap heap = new TopKHeap(3);
+			for (int id = 0; id < SCORES.length; id++) {
+				if (cursor == null || cursor.admits(SCORES[id], id)) {
+					heap.offer(SCORES[id], id);
+				}
+			}
+			boolean hasMore = heap.isFull();
+			TopKHeap.Entry[] page = heap.drain();
+			for (TopKHeap.Entry entry : page) {
+				walked.add(entry.id());
+			}
+			TopKHeap.Entry last = page.length > 0 ? page[page.length - 1] : null;
+			cursor = hasMore && last != null ? MatchCursor.decode(new MatchCursor(last.score(), last.id()).encode()) : null;
+		} while (cursor != null);
+
+		assertThat(walked).containsExactly(1L, 3L, 6L, 9L, 2L, 5L, 7L, 0L, 4L, 8L);
+	}
+}
@@ -0,0 +1,40 @@
+package com.example.demo.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:metrics;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureObservability // metrics export is off in tests unless asked for
+class MetricsEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void prometheusEndpointExposesStageTimersCandidatesStatementsAndCacheHits() {
+		restTemplate.getForEntity("/user/users", String.class);
+		restTemplate.getForEntity("/user/2/matches?k=3", String.class);
+		restTemplate.getForEntity("/user/2", String.class);
+
+		String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+		assertThat(scrape)
+				.contains("http_server_requests_seconds_bucket{")
+				.contains("matching_stage_seconds_bucket{")
+				.contains("operation=\"top-matches\",stage=\"selection\"")
+				.contains("matching_candidates_count{operation=\"top-matches\"} 1")
+				.contains("http_server_requests_statements_count{method=\"GET\",uri=\"/user/users\"} 1")
+				.contains("http_server_requests_statements_sum{method=\"GET\",uri=\"/user/users\"} 1.0")
+				.contains("cache_gets_total{cache=\"user.byId\",result=\"hit\"} 1.0");
+	}
+}
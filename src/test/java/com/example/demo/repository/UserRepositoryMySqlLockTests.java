@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import com.example.demo.models.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The other database tests run H2Dialect, which renders every pessimistic lock as FOR UPDATE. This one
+// renders SQL with the MySQL dialect production uses (H2's MySQL mode runs it), so it sees the lock
+// clause MySQL would actually get.
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:mysqllocks;MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+		"spring.jpa.properties.jakarta.persistence.database-product-name=MySQL",
+		"spring.jpa.properties.jakarta.persistence.database-major-version=8",
+		"spring.jpa.properties.jakarta.persistence.database-minor-version=0",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.example.demo.repository.UserRepositoryMySqlLockTests$RecordingInspector",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryMySqlLockTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void assignmentLockIsExclusiveOnMySql() {
+		User user = new User();
+		user.setName("ada");
+		user.setEmail("ada-lock@example.com");
+		user.setRole("mentor");
+		Long id = userRepository.save(user).getId();
+
+		RecordingInspector.STATEMENTS.clear();
+		assertThat(userRepository.lockExistingIds(List.of(id))).containsExactly(id);
+
+		// FOR SHARE would let two assignments to one mentor both lock it, then deadlock upgrading the lock
+		assertThat(RecordingInspector.STATEMENTS).singleElement().asString()
+				.endsWith(" for update").doesNotContain("for share", "lock in share mode");
+	}
+
+	public static class RecordingInspector implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+}
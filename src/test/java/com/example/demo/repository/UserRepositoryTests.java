@@ -0,0 +1,171 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserSummary;
+import com.example.demo.models.Mentorship;
+import com.example.demo.models.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:users;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MentorshipRepository mentorshipRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void freeMentorQueriesFilterRoleAndCapacityInTheDatabase() {
+		User full = userRepository.save(user("Mentor", 1, 1));
+		User open = userRepository.save(user("MENTOR ", null, 2));
+		userRepository.save(user("mentee", null, 0));
+
+		assertThat(userRepository.findMentorsWithOpenSlots(5)).extracting(User::getId).containsExactly(open.getId());
+		assertThat(open.getRole()).isEqualTo("mentor");
+		assertThat(full.getMenteeCount()).isEqualTo(1);
+	}
+
+	@Test
+	void freeMenteePagesAreKeyedOnId() {
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(userRepository.save(user("mentee", null, 0)).getId());
+		}
+
+		Slice<UserSummary> first = userRepository.findMenteeSummariesWithoutMentorAfter(0, PageRequest.ofSize(3));
+		Slice<UserSummary> second = userRepository.findMenteeSummariesWithoutMentorAfter(
+				first.getContent().get(2).id(), PageRequest.ofSize(3));
+
+		assertThat(first.hasNext()).isTrue();
+		assertThat(second.hasNext()).isFalse();
+		assertThat(second.getContent()).extracting(UserSummary::id).containsExactlyElementsOf(ids.subList(3, 5));
+	}
+
+	@Test
+	void listingUsersWithCollectionsIssuesConstantStatementCount() {
+		long small = statementsToLoadEveryUser(10);
+		long large = statementsToLoadEveryUser(100);
+
+		assertThat(large).isEqualTo(small);
+	}
+
+	@Test
+	void pagingMentorSummariesIsASingleStatement() {
+		assertThat(statementsToPageMentors(10)).isEqualTo(1);
+		assertThat(statementsToPageMentors(100)).isEqualTo(1);
+	}
+
+	@Test
+	void menteeSummariesCostOneStatementRegardlessOfRelationshipCount() {
+		assertThat(statementsToLoadMentees(5)).isEqualTo(1);
+		assertThat(statementsToLoadMentees(40)).isEqualTo(1);
+	}
+
+	@Test
+	void emailIsNormalizedUniqueAndLookedUpThroughItsIndex() {
+		userRepository.saveAndFlush(userWithEmail("mentee", " Ann@Example.com"));
+
+		assertThat(userRepository.findByEmail("ann@example.com")).isPresent();
+		String plan = (String) entityManager.getEntityManager()
+				.createNativeQuery("EXPLAIN SELECT id FROM user WHERE email = 'ann@example.com'")
+				.getSingleResult();
+		assertThat(plan).containsIgnoringCase("uk_user_email");
+
+		// last: the session is unusable after the failed insert
+		assertThatThrownBy(() -> userRepository.saveAndFlush(userWithEmail("mentor", "ANN@example.com")))
+				.isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+	private long statementsToLoadMentees(int mentees) {
+		userRepository.deleteAll();
+		List<Long> menteeIds = new ArrayList<>();
+		for (int i = 0; i < mentees; i++) {
+			menteeIds.add(userRepository.save(user("mentee", null, 0)).getId());
+		}
+		Long mentorId = userRepository.save(user("mentor", null, 0)).getId();
+		menteeIds.forEach(menteeId -> mentorshipRepository.save(new Mentorship(mentorId, menteeId)));
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = statistics();
+		statistics.clear();
+		assertThat(userRepository.findMenteeSummaries(mentorId))
+				.extracting(UserSummary::id).containsExactlyElementsOf(menteeIds);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private Statistics statistics() {
+		return entityManager.getEntityManager().getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	private long statementsToLoadEveryUser(int users) {
+		return countStatements(users, () -> userRepository.findAll().forEach(UserRepositoryTests::touchCollections));
+	}
+
+	private long statementsToPageMentors(int users) {
+		return countStatements(users, () -> userRepository.findMentorSummariesWithOpenSlotsAfter(5, 0, PageRequest.ofSize(users)));
+	}
+
+	private long countStatements(int users, Runnable work) {
+		userRepository.deleteAll();
+		for (int i = 0; i < users; i++) {
+			User user = user("mentor", null, 1);
+			user.setAvailability(new ArrayList<>(List.of("Monday", "Friday")));
+			user.setCodingLanguage(new ArrayList<>(List.of("Java")));
+			user.setExpertise(new ArrayList<>(List.of("Spring")));
+			entityManager.persist(user);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = statistics();
+		statistics.clear();
+		work.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	private static void touchCollections(User user) {
+		user.getAvailability().size();
+		user.getCodingLanguage().size();
+		user.getExpertise().size();
+	}
+
+	private static User userWithEmail(String role, String email) {
+		User user = user(role, null, 0);
+		user.setEmail(email);
+		return user;
+	}
+
+	private static User user(String role, Integer capacity, int mentees) {
+		User user = new User();
+		user.setRole(role);
+		user.setCapacity(capacity);
+		user.setMenteeCount(mentees);
+		return user;
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptPasswordHasherTests {
+
+	private final BCryptPasswordHasher hasher = new BCryptPasswordHasher(4);
+
+	@Test
+	void hashesVerifyAndAreNotRehashedAtTheSameCost() {
+		String hash = hasher.hash("secret");
+
+		assertThat(hash).isNotEqualTo("secret").startsWith("$2a$04$");
+		assertThat(hasher.matches("secret", hash)).isTrue();
+		assertThat(hasher.matches("Secret", hash)).isFalse();
+		assertThat(hasher.needsRehash(hash)).isFalse();
+	}
+
+	@Test
+	void legacyPlainTextStillVerifiesAndAsksForARehash() {
+		assertThat(hasher.matches("password123", "password123")).isTrue();
+		assertThat(hasher.matches("password12", "password123")).isFalse();
+		assertThat(hasher.needsRehash("password123")).isTrue();
+	}
+
+	@Test
+	void raisingTheCostUpgradesOlderHashes() {
+		String weak = hasher.hash("secret");
+		BCryptPasswordHasher stronger = new BCryptPasswordHasher(5);
+
+		assertThat(stronger.matches("secret", weak)).isTrue();
+		assertThat(stronger.needsRehash(weak)).isTrue();
+		assertThat(stronger.needsRehash(stronger.hash("secret"))).isFalse();
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.demo.security;
+
+import com.example.demo.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenServiceTests {
+
+	private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+	private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+	private final TokenService tokenService = new TokenService(SECRET, Duration.ofHours(1), clockAt(NOW));
+
+	@Test
+	void issuedTokensCarryIdAndRole() {
+		TokenClaims claims = tokenService.verify(tokenService.issue(user(42L, "mentor"))).orElseThrow();
+
+		assertThat(claims.userId()).isEqualTo(42L);
+		assertThat(claims.hasRole("mentor")).isTrue();
+		assertThat(claims.expiresAt()).isEqualTo(NOW.plus(Duration.ofHours(1)));
+	}
+
+	@Test
+	void tamperedForeignOrExpiredTokensAreRejected() {
+		String token = tokenService.issue(user(42L, "mentee"));
+		String forged = Base64.getUrlEncoder().withoutPadding().encodeToString("42:9999999999:mentor".getBytes())
+				+ token.substring(token.indexOf('.'));
+
+		assertThat(tokenService.verify(forged)).isEmpty();
+		assertThat(tokenService.verify(token + "x")).isEmpty();
+		assertThat(tokenService.verify("granted")).isEmpty();
+		assertThat(new TokenService("", Duration.ofHours(1), clockAt(NOW)).verify(token)).isEmpty();
+		assertThat(new TokenService(SECRET, Duration.ofHours(1), clockAt(NOW.plus(Duration.ofHours(2))))
+				.verify(token)).isEmpty();
+	}
+
+	private static Clock clockAt(Instant instant) {
+		return Clock.fixed(instant, ZoneOffset.UTC);
+	}
+
+	private static User user(Long id, String role) {
+		User user = new User();
+		user.setId(id);
+		user.setRole(role);
+		return user;
+	}
+}
@@ -0,0 +1,125 @@
+package com.example.demo.seed;
+
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.matching.MatchPartition;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserBatchWriter;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:seed;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"seed.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserDataLoader.class, UserBatchWriter.class, MatchIndex.class, SimilarityIndex.class, JacksonAutoConfiguration.class})
+class UserDataLoaderTests {
+
+	@Autowired
+	private UserDataLoader userDataLoader;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MatchIndex matchIndex;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void clearIndex() {
+		matchIndex.rebuild(List.of()); // the index outlives each test's rolled back transaction
+	}
+
+	@Test
+	void seedsUsersAndCollectionsAndIgnoresTrailingTokens() throws IOException {
+		String json = """
+				[
+				  {"name": "Ann", "email": "ann@example.com", "role": " Mentor ", "meetingType": "virtual",
+				   "codingLanguage": ["Java", "Go"], "availability": ["Monday"], "expertise": [], "mentees": []},
+				  {"name": "Ben", "role": "mentee", "meetingType": "virtual",
+				   "codingLanguage": ["Java"], "availability": ["Monday"]}
+				]
+				]
+				""";
+
+		assertThat(userDataLoader.load(new ByteArrayResource(json.getBytes()))).isEqualTo(2);
+
+		User ann = userRepository.findByEmail("ann@example.com").orElseThrow();
+		assertThat(ann.getRole()).isEqualTo("mentor");
+		assertThat(ann.getCodingLanguage()).containsExactlyInAnyOrder("Java", "Go");
+		assertThat(ann.getExpertise()).isEmpty();
+		assertThat(matchIndex.profile(ann.getId())).isNotNull();
+		assertThat(userRepository.count()).isEqualTo(2);
+	}
+
+	@Test
+	void seedsAcrossSeveralBatches(@TempDir Path dir) throws IOException {
+		int users = 2_500; // three batches, the last one partial
+		Path file = writeSeedFile(dir, users);
+
+		assertThat(userDataLoader.load(new FileSystemResource(file))).isEqualTo(users);
+
+		assertSeeded(users);
+	}
+
+	@Test
+	@Tag("perf")
+	void seedsOneHundredThousandUsers(@TempDir Path dir) throws IOException {
+		int users = 100_000;
+		Path file = writeSeedFile(dir, users);
+
+		long started = System.nanoTime();
+		assertThat(userDataLoader.load(new FileSystemResource(file))).isEqualTo(users);
+		long millis = (System.nanoTime() - started) / 1_000_000;
+
+		assertSeeded(users);
+		assertThat(millis).isLessThan(30_000);
+	}
+
+	private void assertSeeded(int users) {
+		assertThat(userRepository.count()).isEqualTo(users);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_coding_language", Long.class))
+				.isEqualTo(2L * users);
+		assertThat(matchIndex.profiles("mentor", MatchPartition.of("virtual"))).hasSize(users / 4);
+	}
+
+	private static Path writeSeedFile(Path dir, int users) throws IOException {
+		Path file = dir.resolve("users.json");
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			writer.write("[");
+			for (int i = 0; i < users; i++) {
+				writer.write((i == 0 ? "" : ",") + "{\"name\":\"User " + i + "\",\"email\":\"user" + i
+						+ "@example.com\",\"role\":\"" + (i % 4 == 0 ? "mentor" : "mentee")
+						+ "\",\"meetingType\":\"virtual\",\"yearsOfExperience\":" + (i % 20)
+						+ ",\"codingLanguage\":[\"Java\",\"Python\"],\"availability\":[\"Monday\"]"
+						+ ",\"expertise\":[\"Spring\"]}");
+			}
+			writer.write("]");
+		}
+		return file;
+	}
+}
@@ -0,0 +1,189 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.config.AsyncConfig;
+import com.example.demo.dto.AssignmentDTO;
+import com.example.demo.dto.BatchAssignmentResultDTO;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.User;
+import com.example.demo.repository.MentorshipRepository;
+import com.example.demo.repository.UserBatchWriter;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.BCryptPasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:assignment;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"security.password.bcrypt-strength=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AssignmentServiceImplements.class, UserServicesImplements.class, UserBatchWriter.class, MatchIndex.class,
+		UserCache.class, MatchResultCache.class, ScoringModel.class, SimilarityIndex.class, BCryptPasswordHasher.class,
+		AsyncConfig.class, MatchingMetrics.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each batch commits on its own
+class AssignmentServiceTests {
+
+	private static final List<String> DAYS = List.of("Monday", "Tuesday", "Wednesday", "Thursday", "Friday");
+
+	@Autowired
+	private AssignmentService assignmentService;
+
+	@Autowired
+	private UserServices userServices;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MentorshipRepository mentorshipRepository;
+
+	@Autowired
+	private MatchIndex matchIndex;
+
+	@Autowired
+	private MatchingMetrics matchingMetrics;
+
+	@Autowired
+	private ScoringModel scoringModel;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void clear() {
+		mentorshipRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void fillsMentorsToCapacityAndReportsIdsThatAreNotFreeMentees() {
+		Long best = save("mentor", 2, DAYS).getId();
+		Long second = save("mentor", 2, DAYS.subList(0, 3)).getId();
+		Long busy = save("mentor", 1, DAYS).getId();
+		List<Long> mentees = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			mentees.add(save("mentee", null, DAYS).getId());
+		}
+		Long mentored = save("mentee", null, DAYS).getId();
+		userServices.addMentee(busy, mentored); // and now busy is full
+
+		List<Long> cohort = new ArrayList<>(mentees);
+		cohort.addAll(List.of(mentored, best, -1L));
+		BatchAssignmentResultDTO result = assignmentService.assignCohort(cohort);
+
+		// four slots for five mentees, best filled first
+		assertThat(result.getAssignments()).hasSize(4);
+		assertThat(result.getAssignments()).extracting(AssignmentDTO::getMentorId)
+				.containsOnly(best, second).filteredOn(best::equals).hasSize(2);
+		assertThat(result.getUnassignedMenteeIds()).hasSize(1).isSubsetOf(mentees);
+		assertThat(result.getRejectedIds()).containsExactlyInAnyOrder(mentored, best, -1L);
+		assertThat(mentorshipRepository.findExisting(List.of(best, second, busy), List.of(mentored)))
+				.hasSize(1); // the existing link, nothing added for it
+		assertWithinCapacity();
+	}
+
+	@Test
+	void menteesDroppedByAMentorThatFilledUpTryTheirNextPreference() {
+		Long best = save("mentor", 2, DAYS).getId();
+		Long second = save("mentor", 2, DAYS.subList(0, 3)).getId();
+		Long third = save("mentor", 2, DAYS.subList(0, 1)).getId();
+		List<Long> mentees = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			mentees.add(save("mentee", null, DAYS).getId());
+		}
+		Long other = save("mentee", null, DAYS).getId();
+		Long another = save("mentee", null, DAYS).getId();
+
+		// between planning and persisting the first round, other requests fill `best`
+		AtomicBoolean firstRound = new AtomicBoolean(true);
+		UserServices racing = (UserServices) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[]{UserServices.class}, (proxy, method, args) -> {
+					if (method.getName().equals("addMentees") && firstRound.getAndSet(false)) {
+						userServices.addMentee(best, other);
+						userServices.addMentee(best, another);
+					}
+					try {
+						return method.invoke(userServices, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+		AssignmentService service = new AssignmentServiceImplements(userRepository, mentorshipRepository, racing,
+				matchIndex, matchingMetrics, scoringModel, 5, 32, 1);
+
+		BatchAssignmentResultDTO result = service.assignCohort(mentees);
+
+		assertThat(result.getAssignments()).extracting(AssignmentDTO::getMenteeId)
+				.containsExactlyInAnyOrderElementsOf(mentees);
+		assertThat(result.getAssignments()).extracting(AssignmentDTO::getMentorId).containsOnly(second, third);
+		assertThat(result.getUnassignedMenteeIds()).isEmpty();
+		assertWithinCapacity();
+	}
+
+	@Test
+	void aBatchGetsTheSlotsAMentorStillHasEarliestPairsFirst() {
+		Long mentor = save("mentor", 3, DAYS).getId();
+		List<Long> mentees = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			mentees.add(save("mentee", null, DAYS).getId());
+		}
+		userServices.addMentee(mentor, mentees.get(0)); // one of three slots gone since the batch was planned
+
+		List<AssignmentDTO> planned = new ArrayList<>();
+		for (Long mentee : mentees.subList(1, 4)) {
+			planned.add(new AssignmentDTO(mentor, mentee, 0));
+		}
+		List<AssignmentDTO> added = userServices.addMentees(planned);
+
+		assertThat(added).extracting(AssignmentDTO::getMenteeId).containsExactly(mentees.get(1), mentees.get(2));
+		assertThat(userRepository.findById(mentor).orElseThrow().getMenteeCount()).isEqualTo(3);
+		assertWithinCapacity();
+	}
+
+	private void assertWithinCapacity() {
+		assertThat(jdbcTemplate.queryForList("SELECT u.id FROM user u WHERE u.role = 'mentor' AND "
+				+ "(SELECT COUNT(*) FROM mentorship m WHERE m.mentor_id = u.id) > COALESCE(u.capacity, 5)", Long.class))
+				.isEmpty();
+		assertThat(jdbcTemplate.queryForList("SELECT u.id FROM user u WHERE u.mentee_count <> "
+				+ "(SELECT COUNT(*) FROM mentorship m WHERE m.mentor_id = u.id)", Long.class)).isEmpty();
+	}
+
+	private User save(String role, Integer capacity, List<String> availability) {
+		User user = new User();
+		user.setName(role);
+		user.setEmail(role + "-" + System.nanoTime() + "@example.com");
+		user.setRole(role);
+		user.setMeetingType("virtual");
+		user.setCapacity(capacity);
+		user.setAvailability(new ArrayList<>(availability));
+		user.setCodingLanguage(new ArrayList<>(List.of("Java")));
+		user.setExpertise(new ArrayList<>());
+		User saved = userRepository.save(user);
+		matchIndex.index(saved);
+		return saved;
+	}
+}
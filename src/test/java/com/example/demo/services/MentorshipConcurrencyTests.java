@@ -0,0 +1,209 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.config.AsyncConfig;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.User;
+import com.example.demo.repository.MentorshipRepository;
+import com.example.demo.repository.UserBatchWriter;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.BCryptPasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Many threads assigning to and releasing the same few mentors at once, against a real database.
+// Afterwards every denormalized count must equal the links that actually exist, and no mentor may
+// hold more mentees than its capacity.
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:mentorships;MODE=MySQL;NON_KEYWORDS=USER;DATABASE_TO_LOWER=TRUE",
+		// the production dialect, so the lock clauses are the ones MySQL gets (H2Dialect makes every lock FOR UPDATE)
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
+		"spring.jpa.properties.jakarta.persistence.database-product-name=MySQL",
+		"spring.jpa.properties.jakarta.persistence.database-major-version=8",
+		"spring.jpa.properties.jakarta.persistence.database-minor-version=0",
+		"spring.jpa.show-sql=false",
+		"spring.datasource.hikari.maximum-pool-size=16",
+		"security.password.bcrypt-strength=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserServicesImplements.class, UserBatchWriter.class, MatchIndex.class, UserCache.class,
+		MatchResultCache.class, ScoringModel.class, SimilarityIndex.class, BCryptPasswordHasher.class, AsyncConfig.class,
+		MatchingMetrics.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // every assignment commits on its own
+class MentorshipConcurrencyTests {
+
+	private static final Logger logger = LoggerFactory.getLogger(MentorshipConcurrencyTests.class);
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private UserServices userServices;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MentorshipRepository mentorshipRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void clear() {
+		mentorshipRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void aPopularMentorIsFilledExactlyToCapacity() throws Exception {
+		Long mentor = save("mentor", 20).getId();
+		List<Long> mentees = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			mentees.add(save("mentee", null).getId());
+		}
+
+		// every mentee asks twice, from different threads
+		AtomicInteger full = new AtomicInteger();
+		List<Callable<Void>> requests = new ArrayList<>();
+		for (int round = 0; round < 2; round++) {
+			for (Long mentee : mentees) {
+				requests.add(() -> {
+					try {
+						assertThat(userServices.addMentee(mentor, mentee)).isPresent();
+					} catch (MentorFullException e) {
+						full.incrementAndGet();
+					}
+					return null;
+				});
+			}
+		}
+		run(requests);
+
+		assertThat(userRepository.findById(mentor).orElseThrow().getMenteeCount()).isEqualTo(20);
+		assertThat(userRepository.findMenteeSummaries(mentor)).hasSize(20);
+		assertThat(full.get()).isGreaterThanOrEqualTo(400 - 2 * 20);
+		assertCountsMatchLinks();
+	}
+
+	@Test
+	void concurrentAddsAndRemovesNeverLoseACount() throws Exception {
+		List<Long> mentors = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			mentors.add(save("mentor", 10).getId());
+		}
+		List<Long> mentees = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			mentees.add(save("mentee", null).getId());
+		}
+
+		int operations = 2000;
+		List<Callable<Void>> requests = new ArrayList<>();
+		for (int i = 0; i < operations; i++) {
+			requests.add(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				Long mentor = mentors.get(random.nextInt(mentors.size()));
+				Long mentee = mentees.get(random.nextInt(mentees.size()));
+				if (random.nextInt(3) == 0) {
+					userServices.removeMentee(mentor, mentee);
+				} else {
+					try {
+						userServices.addMentee(mentor, mentee);
+					} catch (MentorFullException e) {
+						// full, which is an expected answer here
+					}
+				}
+				return null;
+			});
+		}
+		long start = System.nanoTime();
+		run(requests);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		logger.info("{} threads: {} adds/removes on 4 mentors in {} ms, {} ops/s", THREADS, operations,
+				Math.round(seconds * 1000), Math.round(operations / seconds));
+
+		for (Long mentor : mentors) {
+			assertThat(userRepository.findById(mentor).orElseThrow().getMenteeCount()).isBetween(0, 10);
+		}
+		assertCountsMatchLinks();
+	}
+
+	@Test
+	void usersCheckedForAnAssignmentCannotBeDeletedBeforeItCommits() throws Exception {
+		Long mentor = save("mentor", 5).getId();
+		Long mentee = save("mentee", null).getId();
+		ExecutorService other = Executors.newSingleThreadExecutor();
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				assertThat(userRepository.lockExistingIds(List.of(mentee, mentor))).containsExactly(mentor, mentee);
+				Future<Integer> delete = other.submit(() -> jdbcTemplate.update("DELETE FROM user WHERE id = ?", mentee));
+				// the delete waits on the row lock, so a pair inserted now cannot miss its mentee
+				assertThatThrownBy(() -> delete.get(500, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+				assertThat(mentorshipRepository.insertIfAbsent(mentor, mentee)).isEqualTo(1);
+			});
+		} finally {
+			other.shutdownNow();
+		}
+	}
+
+	private void run(List<Callable<Void>> requests) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			for (Future<Void> result : pool.invokeAll(requests)) {
+				result.get(); // rethrows anything unexpected
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void assertCountsMatchLinks() {
+		assertThat(jdbcTemplate.queryForList("SELECT u.id FROM user u WHERE u.mentee_count <> "
+				+ "(SELECT COUNT(*) FROM mentorship m WHERE m.mentor_id = u.id)", Long.class)).isEmpty();
+		assertThat(jdbcTemplate.queryForList("SELECT u.id FROM user u WHERE u.mentor_count <> "
+				+ "(SELECT COUNT(*) FROM mentorship m WHERE m.mentee_id = u.id)", Long.class)).isEmpty();
+	}
+
+	private User save(String role, Integer capacity) {
+		User user = new User();
+		user.setName(role);
+		user.setEmail(role + "-" + System.nanoTime() + "@example.com");
+		user.setRole(role);
+		user.setMeetingType("virtual");
+		user.setCapacity(capacity);
+		return userRepository.save(user);
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.config.AsyncConfig;
+import com.example.demo.dto.BulkImportResultDTO;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserBatchWriter;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.BCryptPasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:bulk;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.show-sql=false",
+		"user.bulk.chunk-size=2",
+		"user.export.page-size=2",
+		"security.password.bcrypt-strength=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserServicesImplements.class, UserBatchWriter.class, MatchIndex.class, UserCache.class,
+		MatchResultCache.class, ScoringModel.class, SimilarityIndex.class, BCryptPasswordHasher.class, AsyncConfig.class,
+		MatchingMetrics.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // chunks commit on their own
+class UserBulkImportTests {
+
+	@Autowired
+	private UserServices userServices;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void importsInChunksSkippingDuplicatesAndExportsEveryUserAsALine() throws IOException {
+		userRepository.deleteAll();
+		String ndjson = """
+				{"name": "Ann", "email": "ann@example.com", "password": "secret", "role": "mentor", "codingLanguage": ["Java"], "interests": ["Cloud", "AI"], "skills": ["Mentoring"]}
+				{"name": "Ben", "email": "ben@example.com", "role": "mentee"}
+
+				{"name": "Ann again", "email": "ann@example.com"}
+				{"name": "No email"}
+				{"name": "Cat", "email": "cat@example.com", "role": "mentee"}
+				""";
+
+		BulkImportResultDTO result = userServices.importUsers(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(result.getImported()).isEqualTo(3);
+		assertThat(result.getDuplicates()).isEqualTo(1);
+		assertThat(result.getDuplicateEmails()).containsExactly("ann@example.com");
+		assertThat(result.getInvalid()).isEqualTo(1);
+		assertThat(result.getError()).isNull();
+		assertThat(jdbcTemplate.queryForList("SELECT coding_language FROM user_coding_language", String.class))
+				.containsExactly("Java");
+		User ann = userRepository.findByEmail("ann@example.com").orElseThrow();
+		assertThat(ann.getPassword()).startsWith("$2a$04$");
+		assertThat(ann.getInterests()).containsExactly("Cloud", "AI"); // read back through Hibernate
+		assertThat(ann.getSkills()).containsExactly("Mentoring");
+		assertThat(userRepository.findByEmail("ben@example.com").orElseThrow().getInterests()).isNullOrEmpty();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		userServices.exportUsers(out);
+		assertThat(out.toString(StandardCharsets.UTF_8).lines())
+				.hasSize(3)
+				.allSatisfy(line -> assertThat(line).startsWith("{\"id\":"))
+				.anySatisfy(line -> assertThat(line).contains("\"cat@example.com\""));
+	}
+
+	@Test
+	void malformedLineStopsTheUploadButKeepsEarlierUsers() throws IOException {
+		userRepository.deleteAll();
+		String ndjson = """
+				{"name": "Dan", "email": "dan@example.com"}
+				{"name": oops}
+				{"name": "Eve", "email": "eve@example.com"}
+				""";
+
+		BulkImportResultDTO result = userServices.importUsers(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(result.getImported()).isEqualTo(1);
+		assertThat(result.getError()).contains("line 2");
+		assertThat(userRepository.findByEmail("eve@example.com")).isEmpty();
+	}
+}
@@ -0,0 +1,171 @@
+package com.example.demo.services;
+
+import com.example.demo.cache.UserCache;
+import com.example.demo.config.AsyncConfig;
+import com.example.demo.dto.PatchUserDTO;
+import com.example.demo.dto.PatchUserDTO.ValuesDelta;
+import com.example.demo.matching.MatchIndex;
+import com.example.demo.matching.MatchResultCache;
+import com.example.demo.matching.ScoringModel;
+import com.example.demo.matching.SimilarityIndex;
+import com.example.demo.metrics.MatchingMetrics;
+import com.example.demo.models.User;
+import com.example.demo.repository.UserBatchWriter;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.BCryptPasswordHasher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:patch;MODE=MySQL;NON_KEYWORDS=USER",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.example.demo.services.UserPatchTests$RecordingInspector",
+		"spring.jpa.show-sql=false",
+		"security.password.bcrypt-strength=4"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({UserServicesImplements.class, UserBatchWriter.class, MatchIndex.class, UserCache.class,
+		MatchResultCache.class, ScoringModel.class, SimilarityIndex.class, BCryptPasswordHasher.class, AsyncConfig.class,
+		MatchingMetrics.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the patch commits on its own
+class UserPatchTests {
+
+	@Autowired
+	private UserServices userServices;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void omittedFieldsKeepTheirValuesAndOnlyChangedColumnsAreWritten() {
+		User user = userRepository.save(user("ann@example.com"));
+		PatchUserDTO patch = new PatchUserDTO();
+		patch.setLocation("Chicago");
+		patch.setMeetingType("virtual"); // unchanged, so not written either
+
+		RecordingInspector.STATEMENTS.clear();
+		User patched = userServices.patchUserProfile(user.getId(), patch).orElseThrow();
+
+		assertThat(patched.getLocation()).isEqualTo("Chicago");
+		assertThat(patched.getYearsOfExperience()).isEqualTo(7);
+		assertThat(patched.getPersonalStatement()).isEqualTo("Hello");
+		assertThat(patched.getCodingLanguage()).containsExactly("Java", "Go");
+		List<String> updates = RecordingInspector.STATEMENTS.stream()
+				.filter(sql -> sql.startsWith("update")).toList();
+		assertThat(updates).hasSize(1);
+		assertThat(updates.get(0)).contains("location=").doesNotContain("years_of_experience", "meeting_type",
+				"personal_statement", "mentee_count");
+	}
+
+	@Test
+	void listFieldsChangeByAddingAndRemovingSingleValues() {
+		User user = userRepository.save(user("ben@example.com"));
+		long version = user.getVersion();
+		PatchUserDTO patch = new PatchUserDTO();
+		patch.setCodingLanguage(delta(List.of("Rust", "Java"), List.of("Go")));
+		patch.setAvailability(delta(List.of(), List.of("Sunday"))); // not there, nothing to do
+		patch.setInterests(delta(List.of("Cloud"), List.of()));
+
+		RecordingInspector.STATEMENTS.clear();
+		User patched = userServices.patchUserProfile(user.getId(), patch).orElseThrow();
+
+		assertThat(patched.getCodingLanguage()).containsExactlyInAnyOrder("Java", "Rust");
+		assertThat(patched.getAvailability()).containsExactly("Monday");
+		assertThat(patched.getInterests()).containsExactly("AI", "Cloud");
+		assertThat(patched.getVersion()).isEqualTo(version + 1);
+		assertThat(jdbcTemplate.queryForList("SELECT coding_language FROM user_coding_language WHERE user_id = ?",
+				String.class, user.getId())).containsExactlyInAnyOrder("Java", "Rust");
+		// no Hibernate delete-and-reinsert of the collections
+		assertThat(RecordingInspector.STATEMENTS).noneMatch(sql -> sql.contains("user_coding_language")
+				&& !sql.startsWith("select"));
+	}
+
+	@Test
+	void explicitNullClearsAFieldAndALeftOutFieldIsKept() throws Exception {
+		User user = user("cid@example.com");
+		user.setCertifications("AWS");
+		user = userRepository.save(user);
+		PatchUserDTO patch = objectMapper.readValue("{\"location\": null, \"personalStatement\": \"Hi\"}",
+				PatchUserDTO.class);
+
+		User patched = userServices.patchUserProfile(user.getId(), patch).orElseThrow();
+
+		assertThat(patched.getLocation()).isNull();
+		assertThat(patched.getPersonalStatement()).isEqualTo("Hi");
+		assertThat(patched.getCertifications()).isEqualTo("AWS");
+		assertThat(userRepository.findById(user.getId()).orElseThrow().getLocation()).isNull();
+	}
+
+	@Test
+	void fieldsThatCannotBeEmptyRejectAnExplicitNull() {
+		for (String field : List.of("yearsOfExperience", "meetingType", "codingLanguage")) {
+			assertThatThrownBy(() -> objectMapper.readValue("{\"" + field + "\": null}", PatchUserDTO.class))
+					.as(field).isInstanceOf(MismatchedInputException.class); // answered with a 400
+		}
+	}
+
+	@Test
+	void unknownUserIsEmpty() {
+		assertThat(userServices.patchUserProfile(-1L, new PatchUserDTO())).isEmpty();
+	}
+
+	private static ValuesDelta delta(List<String> add, List<String> remove) {
+		ValuesDelta delta = new ValuesDelta();
+		delta.setAdd(add);
+		delta.setRemove(remove);
+		return delta;
+	}
+
+	private static User user(String email) {
+		User user = new User();
+		user.setName("user");
+		user.setEmail(email);
+		user.setRole("mentor");
+		user.setMeetingType("virtual");
+		user.setLocation("Boston");
+		user.setYearsOfExperience(7);
+		user.setPersonalStatement("Hello");
+		user.setCodingLanguage(new ArrayList<>(List.of("Java", "Go")));
+		user.setAvailability(new ArrayList<>(List.of("Monday")));
+		user.setExpertise(new ArrayList<>());
+		user.setInterests(List.of("AI"));
+		return user;
+	}
+
+	// Keeps every statement Hibernate prepares, so the tests can look at what an update wrote
+	public static class RecordingInspector implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+}